@@ -0,0 +1,52 @@
+package program;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading and parsing program files, from a small program to a multi-MB one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FileProgramLoaderBenchmark {
+    @Param({"100", "1000000"})
+    public int instructions;
+
+    private Path programFile;
+    private FileProgramLoader loader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        programFile = Files.createTempFile("escalonador-bench", ".txt");
+        Random rng = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(programFile)) {
+            writer.write("program bench\nbegin\n");
+            for (int i = 0; i < instructions; i++) {
+                if (rng.nextInt(4) == 0) {
+                    writer.write("block " + (rng.nextInt(20) + 1) + "\n");
+                } else {
+                    writer.write("execute\n");
+                }
+            }
+            writer.write("end\n");
+        }
+        loader = new FileProgramLoader();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(programFile);
+    }
+
+    @Benchmark
+    public Program loadProgram() {
+        return loader.loadProgram(programFile.toString());
+    }
+}
@@ -0,0 +1,31 @@
+package program;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures generating random programs of each kind.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RandomProgramLoaderBenchmark {
+    @Param({"IO", "CPU", ""})
+    public String kind;
+
+    @Param({"100", "100000"})
+    public int size;
+
+    private RandomProgramLoader loader;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        loader = new RandomProgramLoader(42);
+    }
+
+    @Benchmark
+    public Program generate() {
+        return loader.loadProgram(kind + size);
+    }
+}
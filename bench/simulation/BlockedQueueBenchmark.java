@@ -0,0 +1,57 @@
+package simulation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of one tick of the blocked queue as the blocked population grows.
+ * A fixed number of processes keep blocking for short times, while the rest of the population
+ * is parked on long blocks. The timing wheel should cost the same per tick whatever the parked population.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BlockedQueueBenchmark {
+    private static final int ACTIVE_PROCESSES = 64;
+    private static final int MAX_BLOCK_TIME = 20;
+    private static final int PARKED_BLOCK_TIME = 1_000_000_000;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int population;
+
+    private BlockedQueue blockedQueue;
+    private IntList unblocked;
+    private Random rng;
+    private long tick;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rng = new Random(42);
+        blockedQueue = new BlockedQueue(256);
+        for (int i = 0; i < population; i++) {
+            blockedQueue.add(i, PARKED_BLOCK_TIME + i);
+        }
+        for (int i = 0; i < ACTIVE_PROCESSES; i++) {
+            blockedQueue.add(population + i, rng.nextInt(MAX_BLOCK_TIME) + 1);
+        }
+        unblocked = new IntList();
+        tick = 0;
+    }
+
+    /**
+     * One tick: advance the wheel, and block the processes that woke up again.
+     */
+    @Benchmark
+    public int tick() {
+        tick++;
+        blockedQueue.advanceTo(tick, unblocked);
+        int woken = unblocked.size();
+        for (int i = 0; i < woken; i++) {
+            blockedQueue.add(unblocked.get(i), tick + rng.nextInt(MAX_BLOCK_TIME) + 1);
+        }
+        unblocked.clear();
+        return woken;
+    }
+}
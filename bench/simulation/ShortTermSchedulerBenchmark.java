@@ -0,0 +1,62 @@
+package simulation;
+
+import org.openjdk.jmh.annotations.*;
+import policy.SchedulingPolicy;
+import program.Program;
+import program.RandomProgramLoader;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures dispatch throughput of the short term scheduler in virtual time, with sleeping disabled.
+ * Every invocation runs a fresh set of processes to completion; the score is per invocation,
+ * and the number of dispatched instructions is fixed by the parameters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ShortTermSchedulerBenchmark {
+    @Param({"two-queue", "mlfq", "cfs", "srtf"})
+    public String policy;
+
+    @Param({"100"})
+    public int processes;
+
+    @Param({"1000"})
+    public int instructions;
+
+    private List<Program> programs;
+    private PrintStream standardOutput;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RandomProgramLoader loader = new RandomProgramLoader();
+        programs = new ArrayList<>();
+        for (int i = 0; i < processes; i++) {
+            programs.add(loader.loadProgram((i % 2 == 0 ? "CPU" : "IO") + instructions));
+        }
+        // The processes log every instruction, which is not what is being measured here
+        standardOutput = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(standardOutput);
+    }
+
+    @Benchmark
+    public long dispatch() {
+        ShortTermScheduler scheduler = new ShortTermScheduler(1, false, SchedulingPolicy.create(policy));
+        long pid = 1;
+        for (Program program : programs) {
+            scheduler.addProcess(new SimulatedProcess(program, pid++));
+        }
+        scheduler.runToCompletion();
+        return scheduler.getClock();
+    }
+}
@@ -1,13 +1,53 @@
+import batch.BatchRunner;
+import batch.ClusterRunner;
+import batch.ParameterSweep;
+import interfaces.ControlInterface;
+import interfaces.InterSchedulerInterface;
+import notification.NotificationBus;
+import policy.SchedulingPolicy;
+import program.CachingProgramLoader;
 import program.FileProgramLoader;
+import program.ProgramLoader;
 import program.RandomProgramLoader;
+import simulation.IoDevice;
 import simulation.LongTermScheduler;
+import simulation.MultiCoreScheduler;
 import simulation.ShortTermScheduler;
 import simulation.UserInterface;
+import trace.ConsoleTracer;
+import trace.EventTracer;
+import trace.RingBufferTracer;
+import workload.WorkloadWriter;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 public class Main {
+    /**
+     * The most instructions the program cache holds, across all cached programs
+     */
+    private static final long PROGRAM_CACHE_CAPACITY = 50_000_000;
+
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--headless")) {
+            BatchRunner.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--cluster")) {
+            ClusterRunner.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--sweep")) {
+            ParameterSweep.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         if (args.length < 2) {
-            System.out.println("Usage: Escalonador <quantum> <max-load> <use-random-program-generator?>");
+            System.out.println("Usage: Escalonador <quantum> <max-load> <use-random-program-generator?> <real-time-pacing?> <cores> <two-queue|mlfq|cfs|srtf|priority|adaptive|round-robin> <trace-file>");
+            System.out.println("       Escalonador --headless <quantum> <max-load> <workload> <all|ticks> <results-file> <policy>");
+            System.out.println("       Escalonador --cluster <nodes> <max-load-per-node> <least-loaded|power-of-two|hash> <policy> <workload> <all|ticks> <migration-threshold>");
+            System.out.println("       Escalonador --sweep <quantums> <max-loads> <policies|all> <workload> <all|ticks> <results.csv>");
             System.exit(0);
         }
         int quantum = Integer.parseInt(args[0]);
@@ -16,13 +56,84 @@ public class Main {
         if (args.length > 2) {
             useRandom = Boolean.parseBoolean(args[2]);
         }
-        ShortTermScheduler shortTermScheduler = new ShortTermScheduler(quantum);
-        LongTermScheduler longTermScheduler = new LongTermScheduler(maxLoad, shortTermScheduler, useRandom ? new RandomProgramLoader() : new FileProgramLoader());
+        boolean realTimePacing = true;
+        if (args.length > 3) {
+            realTimePacing = Boolean.parseBoolean(args[3]);
+        }
+        int cores = 1;
+        if (args.length > 4) {
+            cores = Integer.parseInt(args[4]);
+        }
+        String policy = args.length > 5 ? args[5] : "two-queue";
+        EventTracer tracer = new ConsoleTracer();
+        if (args.length > 6) {
+            try {
+                tracer = new RingBufferTracer(Paths.get(args[6]));
+            } catch (IOException e) {
+                System.err.printf("Failed to open trace file '%s'\nException: '%s'\n", args[6], e.getMessage());
+                System.exit(1);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(tracer::close));
+        }
+        NotificationBus notificationBus = new NotificationBus();
+        if (cores > 1) {
+            MultiCoreScheduler multiCoreScheduler = new MultiCoreScheduler(cores, quantum, realTimePacing, () -> SchedulingPolicy.create(policy));
+            multiCoreScheduler.setTracer(tracer);
+            multiCoreScheduler.setNotificationObserver(notificationBus.publisher("process-queues"));
+            for (IoDevice device : IoDevice.configured()) {
+                multiCoreScheduler.addDevice(device);
+            }
+            launch(multiCoreScheduler, maxLoad, useRandom, notificationBus).run();
+        } else {
+            ShortTermScheduler shortTermScheduler = new ShortTermScheduler(quantum, realTimePacing, SchedulingPolicy.create(policy));
+            shortTermScheduler.setTracer(tracer);
+            shortTermScheduler.setNotificationObserver(notificationBus.publisher("process-queues"));
+            for (IoDevice device : IoDevice.configured()) {
+                shortTermScheduler.addDevice(device);
+            }
+            launch(shortTermScheduler, maxLoad, useRandom, notificationBus).run();
+        }
+    }
+
+    /**
+     * @return The user interface, ready to be run.
+     * Creates the long term scheduler on top of the given short term scheduler, and starts both.
+     * The user interface gets the notifications of both schedulers on the Swing event dispatch thread.
+     */
+    private static <T extends Runnable & ControlInterface & InterSchedulerInterface> UserInterface launch(
+            T shortTermScheduler, int maxLoad, boolean useRandom, NotificationBus notificationBus) {
+        ProgramLoader loader;
+        if (useRandom) {
+            String seed = System.getProperty("escalonador.seed");
+            RandomProgramLoader randomLoader = seed == null ? new RandomProgramLoader() : new RandomProgramLoader(Long.parseLong(seed));
+            System.out.printf("Random programs seeded with %d\n", randomLoader.getSeed());
+            loader = randomLoader;
+        } else {
+            loader = new CachingProgramLoader(new FileProgramLoader(), PROGRAM_CACHE_CAPACITY);
+        }
+        LongTermScheduler longTermScheduler = new LongTermScheduler(maxLoad, shortTermScheduler, loader);
+        String recordFile = System.getProperty("escalonador.record");
+        if (recordFile != null) {
+            try {
+                WorkloadWriter writer = new WorkloadWriter(Paths.get(recordFile));
+                longTermScheduler.setRecorder(writer);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        writer.close();
+                    } catch (IOException e) {
+                        System.err.printf("Failed to write workload '%s'\nException: '%s'\n", recordFile, e.getMessage());
+                    }
+                }));
+            } catch (IOException e) {
+                System.err.printf("Failed to open workload file '%s'\nException: '%s'\n", recordFile, e.getMessage());
+                System.exit(1);
+            }
+        }
         UserInterface userInterface = new UserInterface(longTermScheduler, shortTermScheduler);
-        shortTermScheduler.setNotificationObserver(userInterface);
-        longTermScheduler.setNotificationObserver(userInterface);
+        longTermScheduler.setNotificationObserver(notificationBus.publisher("submission-queue"));
+        notificationBus.subscribe(userInterface, SwingUtilities::invokeLater);
         new Thread(shortTermScheduler).start();
         new Thread(longTermScheduler).start();
-        userInterface.run();
+        return userInterface;
     }
-}
\ No newline at end of file
+}
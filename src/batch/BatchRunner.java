@@ -0,0 +1,87 @@
+package batch;
+
+import policy.SchedulingPolicy;
+import simulation.IoDevice;
+import simulation.LongTermScheduler;
+import simulation.ShortTermScheduler;
+import trace.EventTracer;
+import workload.WorkloadReplay;
+import workload.WorkloadSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Runs one simulation without a user interface, in virtual time, and writes its results to a JSON or CSV file.
+ * Nothing here touches AWT or Swing, so it runs with java.awt.headless=true.
+ */
+public class BatchRunner {
+    public static void main(String[] args) {
+        if (args.length < 5) {
+            System.out.println("Usage: BatchRunner <quantum> <max-load> <workload> <all|ticks> <results.json|results.csv> <two-queue|mlfq|cfs|srtf|priority|adaptive|round-robin>");
+            System.out.println("The workload is random:seed:count:job, synthetic:seed:count:spec, a recorded workload file, or a program file, directory or glob.");
+            System.exit(0);
+        }
+        int quantum = Integer.parseInt(args[0]);
+        int maxLoad = Integer.parseInt(args[1]);
+        String workload = args[2];
+        long stopTick = args[3].equals("all") ? Long.MAX_VALUE : Long.parseLong(args[3]);
+        String resultsFile = args[4];
+        String policy = args.length > 5 ? args[5] : "two-queue";
+        RunResult result;
+        try {
+            result = run(quantum, maxLoad, policy, workload, stopTick);
+        } catch (IOException e) {
+            System.err.printf("Failed to read workload '%s'\nException: '%s'\n", workload, e.getMessage());
+            System.exit(1);
+            return;
+        }
+        try {
+            if (resultsFile.endsWith(".csv")) {
+                Files.writeString(Paths.get(resultsFile), RunResult.CSV_HEADER + "\n" + result.toCsvRow() + "\n");
+            } else {
+                Files.writeString(Paths.get(resultsFile), result.toJson());
+            }
+        } catch (IOException e) {
+            System.err.printf("Failed to write results '%s'\nException: '%s'\n", resultsFile, e.getMessage());
+            System.exit(1);
+        }
+        System.out.print(result.getMetrics());
+        System.out.printf("Wall time: %.3f ms\n", result.getWallNanos() / 1e6);
+    }
+
+    /**
+     * @param quantum The duration of a tick, in milliseconds of simulated time.
+     * @param maxLoad The maximum load of the long term scheduler.
+     * @param policy The name of the scheduling policy.
+     * @param workload The description of the workload, as taken by {@link WorkloadSource#open(String)}.
+     * @param stopTick The tick at which to stop, or Long.MAX_VALUE to run until every job is done.
+     * @return The outcome of the run.
+     * Runs the whole simulation on the calling thread, so several runs can go on at once on different threads.
+     */
+    public static RunResult run(int quantum, int maxLoad, String policy, String workload, long stopTick) throws IOException {
+        try (WorkloadSource source = WorkloadSource.open(workload)) {
+            return run(quantum, maxLoad, policy, source, workload, stopTick);
+        }
+    }
+
+    /**
+     * @param source The submissions of the run, which are all read.
+     * @param workloadName How the workload is called in the results.
+     * The other parameters are the ones of {@link #run(int, int, String, String, long)}.
+     */
+    public static RunResult run(int quantum, int maxLoad, String policy, WorkloadSource source, String workloadName,
+                                long stopTick) throws IOException {
+        ShortTermScheduler shortTermScheduler = new ShortTermScheduler(quantum, false, SchedulingPolicy.create(policy));
+        shortTermScheduler.setTracer(EventTracer.NONE);
+        for (IoDevice device : IoDevice.configured()) {
+            shortTermScheduler.addDevice(device);
+        }
+        long start = System.nanoTime();
+        LongTermScheduler longTermScheduler = WorkloadReplay.replay(source, shortTermScheduler, maxLoad, stopTick);
+        long wallNanos = System.nanoTime() - start;
+        return new RunResult(policy, quantum, maxLoad, workloadName, longTermScheduler.getSubmittedCount(),
+                longTermScheduler.getAdmittedCount(), wallNanos, shortTermScheduler.getMetrics());
+    }
+}
@@ -0,0 +1,77 @@
+package batch;
+
+import policy.PlacementStrategy;
+import policy.SchedulingPolicy;
+import simulation.IoDevice;
+import simulation.LongTermScheduler;
+import simulation.MultiCoreScheduler;
+import trace.EventTracer;
+import workload.WorkloadReplay;
+import workload.WorkloadSource;
+
+import java.io.IOException;
+
+/**
+ * Runs a workload on a cluster of single-CPU nodes, in virtual time, and reports the load and latency of every node
+ * and of the whole fleet.
+ * One long term scheduler admits jobs for the whole cluster, the placement strategy picks the node of every job,
+ * and idle nodes take ready processes from the busiest node once it has enough of them.
+ */
+public class ClusterRunner {
+    /**
+     * The seed of the random choices of the placement strategies, so that runs can be reproduced
+     */
+    private static final long PLACEMENT_SEED = 42;
+
+    public static void main(String[] args) {
+        if (args.length < 6) {
+            System.out.println("Usage: ClusterRunner <nodes> <max-load-per-node> <least-loaded|power-of-two|hash> <two-queue|mlfq|cfs|srtf|priority|adaptive|round-robin> <workload> <all|ticks> <migration-threshold>");
+            System.out.println("A migration threshold of 0 never moves processes between nodes.");
+            System.exit(0);
+        }
+        int nodes = Integer.parseInt(args[0]);
+        int maxLoadPerNode = Integer.parseInt(args[1]);
+        String placement = args[2];
+        String policy = args[3];
+        String workload = args[4];
+        long stopTick = args[5].equals("all") ? Long.MAX_VALUE : Long.parseLong(args[5]);
+        int migrationThreshold = args.length > 6 ? Integer.parseInt(args[6]) : 1;
+        MultiCoreScheduler cluster = new MultiCoreScheduler(nodes, 1, false, () -> SchedulingPolicy.create(policy),
+                PlacementStrategy.create(placement, PLACEMENT_SEED));
+        cluster.setTracer(EventTracer.NONE);
+        cluster.setMigrationThreshold(migrationThreshold);
+        for (IoDevice device : IoDevice.configured()) {
+            cluster.addDevice(device);
+        }
+        long start = System.nanoTime();
+        LongTermScheduler longTermScheduler;
+        try {
+            longTermScheduler = run(cluster, maxLoadPerNode, workload, stopTick);
+        } catch (IOException e) {
+            System.err.printf("Failed to read workload '%s'\nException: '%s'\n", workload, e.getMessage());
+            System.exit(1);
+            return;
+        }
+        long wallNanos = System.nanoTime() - start;
+        System.out.print(cluster.describeCores());
+        System.out.printf("Fleet of %d nodes, %s placement, %s policy, migration threshold %d\n",
+                nodes, placement, policy, migrationThreshold);
+        System.out.printf("Submitted: %d, admitted: %d\n", longTermScheduler.getSubmittedCount(), longTermScheduler.getAdmittedCount());
+        System.out.print(cluster.getMetrics());
+        System.out.printf("Wall time: %.3f ms\n", wallNanos / 1e6);
+    }
+
+    /**
+     * @param cluster The nodes, without real time pacing, whose threads are not started.
+     * @param maxLoadPerNode The load each node is sized for. The long term scheduler admits up to this many processes
+     *                       per node over the whole fleet, and leaves where they go to the placement strategy.
+     * @param workload The description of the workload, as taken by {@link WorkloadSource#open(String)}.
+     * @param stopTick The tick at which to stop, or Long.MAX_VALUE to run until every job is done.
+     * @return The long term scheduler the jobs went through, which is stopped.
+     */
+    public static LongTermScheduler run(MultiCoreScheduler cluster, int maxLoadPerNode, String workload, long stopTick) throws IOException {
+        try (WorkloadSource source = WorkloadSource.open(workload)) {
+            return WorkloadReplay.replay(source, cluster, maxLoadPerNode * cluster.getCoreCount(), stopTick);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package batch;
+
+import policy.SchedulingPolicy;
+import workload.ProgramListWorkload;
+import workload.WorkloadSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs the same workload under every combination of quantum, max load and scheduling policy, in parallel,
+ * and compares the results.
+ * Every configuration gets its own long term and short term schedulers, so the runs share nothing but the programs,
+ * which are immutable.
+ */
+public class ParameterSweep {
+    public static void main(String[] args) {
+        if (args.length < 5) {
+            System.out.println("Usage: ParameterSweep <quantums> <max-loads> <policies|all> <workload> <all|ticks> <results.csv>");
+            System.out.println("Quantums and max loads are lists like 1,5,10 or ranges like 1..100 or 10..100:10.");
+            System.exit(0);
+        }
+        List<Integer> quantums = parseValues(args[0]);
+        List<Integer> maxLoads = parseValues(args[1]);
+        List<String> policies = args[2].equals("all") ? SchedulingPolicy.NAMES : Arrays.asList(args[2].split(","));
+        String workload = args[3];
+        long stopTick = args[4].equals("all") ? Long.MAX_VALUE : Long.parseLong(args[4]);
+        List<RunResult> results;
+        long start = System.nanoTime();
+        try {
+            results = sweep(quantums, maxLoads, policies, workload, stopTick);
+        } catch (IOException e) {
+            System.err.printf("Failed to read workload '%s'\nException: '%s'\n", workload, e.getMessage());
+            System.exit(1);
+            return;
+        }
+        System.out.print(toTable(results));
+        System.out.printf("%d configurations in %.3f s\n", results.size(), (System.nanoTime() - start) / 1e9);
+        if (args.length > 5) {
+            StringBuilder csv = new StringBuilder(RunResult.CSV_HEADER).append("\n");
+            for (RunResult result : results) {
+                csv.append(result.toCsvRow()).append("\n");
+            }
+            try {
+                Files.writeString(Paths.get(args[5]), csv);
+            } catch (IOException e) {
+                System.err.printf("Failed to write results '%s'\nException: '%s'\n", args[5], e.getMessage());
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * @param quantums The quantums to try.
+     * @param maxLoads The max loads to try.
+     * @param policies The names of the scheduling policies to try.
+     * @param workload The description of the workload, as taken by {@link WorkloadSource#open(String)}. It is read once.
+     * @param stopTick The tick at which every run stops, or Long.MAX_VALUE to run until every job is done.
+     * @return The results of every configuration, in the order policy, then quantum, then max load.
+     * Runs the configurations on a fork-join pool with one thread per available processor.
+     */
+    public static List<RunResult> sweep(List<Integer> quantums, List<Integer> maxLoads, List<String> policies,
+                                        String workload, long stopTick) throws IOException {
+        ProgramListWorkload submissions;
+        try (WorkloadSource source = WorkloadSource.open(workload)) {
+            submissions = ProgramListWorkload.readAll(source);
+        }
+        List<Configuration> configurations = new ArrayList<>();
+        for (String policy : policies) {
+            SchedulingPolicy.create(policy);
+            for (int quantum : quantums) {
+                for (int maxLoad : maxLoads) {
+                    configurations.add(new Configuration(policy, quantum, maxLoad));
+                }
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            return pool.submit(() -> configurations.parallelStream()
+                    .map(configuration -> configuration.run(submissions.rewound(), workload, stopTick))
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sweeping", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @return A table with one row per result, followed by the best configurations.
+     * Every instruction takes one tick whatever the quantum, so the best configurations are ranked on the metrics in ticks,
+     * which only the policy and the max load change.
+     */
+    public static String toTable(List<RunResult> results) {
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT, "%-12s %8s %9s %10s %14s %16s %15s %8s %10s\n",
+                "policy", "quantum", "max-load", "completed", "throughput/s", "turnaround (ms)", "p99 (ms)", "cpu %", "switches"));
+        for (RunResult result : results) {
+            table.append(String.format(Locale.ROOT, "%-12s %8d %9d %10d %14.3f %16.1f %15d %8.1f %10d\n",
+                    result.getPolicy(), result.getQuantum(), result.getMaxLoad(), result.getMetrics().getCompletedCount(),
+                    throughputPerSecond(result), result.getMetrics().getTurnaroundTime().getMean() * result.getQuantum(),
+                    result.getMetrics().getTurnaroundTime().getPercentile(99) * result.getQuantum(),
+                    result.getMetrics().getCpuUtilization() * 100, result.getMetrics().getContextSwitchCount()));
+        }
+        if (!results.isEmpty()) {
+            table.append("Every quantum gives the same metrics in ticks; it only scales the time based columns.\n");
+            RunResult bestThroughput = results.stream()
+                    .max(Comparator.comparingDouble(result -> result.getMetrics().getThroughput())).get();
+            table.append(String.format(Locale.ROOT, "Best throughput: %s, max load %d (%.4f jobs per tick)\n",
+                    bestThroughput.getPolicy(), bestThroughput.getMaxLoad(), bestThroughput.getMetrics().getThroughput()));
+            // A run that completed nothing has no turnaround to compare
+            results.stream()
+                    .filter(result -> result.getMetrics().getCompletedCount() > 0)
+                    .min(Comparator.comparingLong(result -> result.getMetrics().getTurnaroundTime().getPercentile(99)))
+                    .ifPresent(best -> table.append(String.format(Locale.ROOT, "Best p99 turnaround: %s, max load %d (%d ticks)\n",
+                            best.getPolicy(), best.getMaxLoad(), best.getMetrics().getTurnaroundTime().getPercentile(99))));
+        }
+        return table.toString();
+    }
+
+    /**
+     * @param values A comma separated list of values, each a number or a range like 1..100 or 10..100:10
+     */
+    static List<Integer> parseValues(String values) {
+        List<Integer> parsed = new ArrayList<>();
+        for (String value : values.split(",")) {
+            int range = value.indexOf("..");
+            if (range < 0) {
+                parsed.add(Integer.parseInt(value.trim()));
+                continue;
+            }
+            int step = 1;
+            String end = value.substring(range + 2);
+            int stepIndex = end.indexOf(':');
+            if (stepIndex >= 0) {
+                step = Integer.parseInt(end.substring(stepIndex + 1).trim());
+                end = end.substring(0, stepIndex);
+            }
+            if (step <= 0) {
+                throw new IllegalArgumentException("The step of a range must be positive: " + value);
+            }
+            for (int i = Integer.parseInt(value.substring(0, range).trim()); i <= Integer.parseInt(end.trim()); i += step) {
+                parsed.add(i);
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * @return The number of jobs completed per second of simulated time, with every tick lasting a quantum
+     */
+    private static double throughputPerSecond(RunResult result) {
+        return result.getSimulatedMillis() == 0 ? 0 : result.getMetrics().getCompletedCount() * 1000.0 / result.getSimulatedMillis();
+    }
+
+    private static class Configuration {
+        private final String policy;
+        private final int quantum;
+        private final int maxLoad;
+
+        Configuration(String policy, int quantum, int maxLoad) {
+            this.policy = policy;
+            this.quantum = quantum;
+            this.maxLoad = maxLoad;
+        }
+
+        RunResult run(WorkloadSource source, String workloadName, long stopTick) {
+            try {
+                return BatchRunner.run(quantum, maxLoad, policy, source, workloadName, stopTick);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package batch;
+
+import metrics.LogHistogram;
+import metrics.SchedulingMetrics;
+
+import java.util.Locale;
+
+/**
+ * The outcome of one headless run: its configuration, how long it took, and its scheduling metrics.
+ */
+public class RunResult {
+    /**
+     * The header of the rows written by {@link #toCsvRow()}
+     */
+    public static final String CSV_HEADER = "policy,quantum,max_load,workload,submitted,admitted,completed,"
+            + "elapsed_ticks,simulated_ms,wall_ms,throughput,cpu_utilization,"
+            + "turnaround_mean,turnaround_p50,turnaround_p99,turnaround_max,"
+            + "waiting_mean,waiting_p99,response_mean,response_p99,blocked_mean,blocked_p99,"
+            + "longest_wait_p99,longest_wait_max,aging_raises,context_switches,time_slice_mean,time_slice_p99,"
+            + "io_queue_wait_mean,io_queue_wait_p99";
+
+    private final String policy;
+    private final int quantum;
+    private final int maxLoad;
+    private final String workload;
+    private final long submittedCount;
+    private final long admittedCount;
+    private final long wallNanos;
+    private final SchedulingMetrics metrics;
+
+    public RunResult(String policy, int quantum, int maxLoad, String workload, long submittedCount, long admittedCount,
+                     long wallNanos, SchedulingMetrics metrics) {
+        this.policy = policy;
+        this.quantum = quantum;
+        this.maxLoad = maxLoad;
+        this.workload = workload;
+        this.submittedCount = submittedCount;
+        this.admittedCount = admittedCount;
+        this.wallNanos = wallNanos;
+        this.metrics = metrics;
+    }
+
+    public String getPolicy() {
+        return policy;
+    }
+
+    public int getQuantum() {
+        return quantum;
+    }
+
+    public int getMaxLoad() {
+        return maxLoad;
+    }
+
+    public String getWorkload() {
+        return workload;
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount;
+    }
+
+    public long getAdmittedCount() {
+        return admittedCount;
+    }
+
+    /**
+     * @return How long the run took, in nanoseconds of wall time
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public SchedulingMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return The simulated time, in milliseconds, with every tick lasting a quantum
+     */
+    public long getSimulatedMillis() {
+        return metrics.getElapsedTicks() * quantum;
+    }
+
+    public String toJson() {
+        return String.format(Locale.ROOT, """
+                        {
+                          "policy": "%s",
+                          "quantum": %d,
+                          "maxLoad": %d,
+                          "workload": "%s",
+                          "submitted": %d,
+                          "admitted": %d,
+                          "completed": %d,
+                          "elapsedTicks": %d,
+                          "simulatedMillis": %d,
+                          "wallMillis": %.3f,
+                          "throughput": %.6f,
+                          "cpuUtilization": %.6f,
+                          "turnaround": %s,
+                          "waiting": %s,
+                          "response": %s,
+                          "blocked": %s,
+                          "longestWait": %s,
+                          "agingRaises": %d,
+                          "contextSwitches": %d,
+                          "timeSlices": %s,
+                          "ioQueueWait": %s
+                        }
+                        """,
+                escape(policy), quantum, maxLoad, escape(workload), submittedCount, admittedCount,
+                metrics.getCompletedCount(), metrics.getElapsedTicks(), getSimulatedMillis(), wallNanos / 1e6,
+                metrics.getThroughput(), metrics.getCpuUtilization(), toJson(metrics.getTurnaroundTime()),
+                toJson(metrics.getWaitingTime()), toJson(metrics.getResponseTime()), toJson(metrics.getBlockedTime()),
+                toJson(metrics.getLongestWait()), metrics.getAgingCount(), metrics.getContextSwitchCount(),
+                toJson(metrics.getTimeSlices()), toJson(metrics.getIoQueueWait()));
+    }
+
+    public String toCsvRow() {
+        return String.format(Locale.ROOT, "%s,%d,%d,%s,%d,%d,%d,%d,%d,%.3f,%.6f,%.6f,%.3f,%d,%d,%d,%.3f,%d,%.3f,%d,%.3f,%d,%d,%d,%d,%d,%.3f,%d,%.3f,%d",
+                csv(policy), quantum, maxLoad, csv(workload), submittedCount, admittedCount, metrics.getCompletedCount(),
+                metrics.getElapsedTicks(), getSimulatedMillis(), wallNanos / 1e6, metrics.getThroughput(),
+                metrics.getCpuUtilization(),
+                metrics.getTurnaroundTime().getMean(), metrics.getTurnaroundTime().getPercentile(50),
+                metrics.getTurnaroundTime().getPercentile(99), metrics.getTurnaroundTime().getMax(),
+                metrics.getWaitingTime().getMean(), metrics.getWaitingTime().getPercentile(99),
+                metrics.getResponseTime().getMean(), metrics.getResponseTime().getPercentile(99),
+                metrics.getBlockedTime().getMean(), metrics.getBlockedTime().getPercentile(99),
+                metrics.getLongestWait().getPercentile(99), metrics.getLongestWait().getMax(), metrics.getAgingCount(),
+                metrics.getContextSwitchCount(), metrics.getTimeSlices().getMean(), metrics.getTimeSlices().getPercentile(99),
+                metrics.getIoQueueWait().getMean(), metrics.getIoQueueWait().getPercentile(99));
+    }
+
+    private static String toJson(LogHistogram histogram) {
+        return String.format(Locale.ROOT, "{\"mean\": %.3f, \"p50\": %d, \"p99\": %d, \"p999\": %d, \"max\": %d}",
+                histogram.getMean(), histogram.getPercentile(50), histogram.getPercentile(99),
+                histogram.getPercentile(99.9), histogram.getMax());
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String csv(String value) {
+        if (value.contains(",") || value.contains("\"")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -1,9 +1,12 @@
 package interfaces;
 
+import metrics.SchedulingMetrics;
+
 public interface ControlInterface {
     public void startSimulation();
     public void suspendSimulation();
     public void resumeSimulation();
     public void stopSimulation();
     public void displayProcessQueues();
+    public SchedulingMetrics getMetrics();
 }
@@ -6,4 +6,9 @@ import simulation.SimulatedProcess;
 public interface InterSchedulerInterface {
     void addProcess(SimulatedProcess program);
     int getProcessLoad();
+    void setLoadObserver(LoadObserverInterface loadObserver);
+    /**
+     * @return The current tick of the simulation's virtual clock
+     */
+    long getClock();
 }
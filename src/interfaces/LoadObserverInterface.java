@@ -0,0 +1,10 @@
+package interfaces;
+
+public interface LoadObserverInterface {
+    /**
+     * Called whenever the scheduler may have room for more processes,
+     * e.g. when a process finishes or when the simulation starts.
+     * Must not block, since it can be called while the scheduler holds its locks.
+     */
+    void loadChanged();
+}
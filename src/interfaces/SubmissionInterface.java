@@ -1,6 +1,71 @@
 package interfaces;
 
+import simulation.BatchSubmission;
+import simulation.SimulatedProcess;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public interface SubmissionInterface {
-    boolean submitJob(String fileName);
+    /**
+     * @param fileName The job to submit.
+     * @return Whether the program could be loaded.
+     * Submits the job at the default priority.
+     */
+    default boolean submitJob(String fileName) {
+        return submitJob(fileName, SimulatedProcess.DEFAULT_PRIORITY);
+    }
+
+    /**
+     * @param fileName The job to submit.
+     * @param priority The priority of the process, which only the priority policy looks at. Higher runs first.
+     * @return Whether the program could be loaded.
+     * Submits the job without pinning it to a CPU.
+     */
+    default boolean submitJob(String fileName, int priority) {
+        return submitJob(fileName, priority, SimulatedProcess.NO_AFFINITY);
+    }
+
+    /**
+     * @param fileName The job to submit.
+     * @param priority The priority of the process, which only the priority policy looks at. Higher runs first.
+     * @param affinity The index of the CPU the process is pinned to, or {@link SimulatedProcess#NO_AFFINITY}.
+     *                 Only a multi-core scheduler looks at it.
+     * @return Whether the program could be loaded
+     */
+    boolean submitJob(String fileName, int priority, int affinity);
+
+    /**
+     * @param fileNames The jobs to submit, in order.
+     * @return A handle on the batch, with the outcome of every job.
+     * Loads the programs in the background, possibly in parallel, and queues them for admission in the given order.
+     */
+    default BatchSubmission submitJobs(List<String> fileNames) {
+        return submitJobs(fileNames, SimulatedProcess.DEFAULT_PRIORITY);
+    }
+
+    /**
+     * @param fileNames The jobs to submit, in order.
+     * @param priority The priority of every process of the batch.
+     * @return A handle on the batch, with the outcome of every job
+     */
+    BatchSubmission submitJobs(List<String> fileNames, int priority);
+
+    /**
+     * @param pattern A directory, whose files are all submitted, a glob such as "programs/*.txt", or a single job.
+     * @return A future completed with the batch, with the outcome of every job, once every job was handled.
+     * Lists the matching files in the background, and submits them in the order of their names like {@link #submitJobs(List)}.
+     */
+    default CompletableFuture<BatchSubmission> submitMatching(String pattern) {
+        return submitMatching(pattern, SimulatedProcess.DEFAULT_PRIORITY);
+    }
+
+    /**
+     * @param pattern A directory, whose files are all submitted, a glob such as "programs/*.txt", or a single job.
+     * @param priority The priority of every process of the batch.
+     * @return A future completed with the batch, with the outcome of every job, once every job was handled
+     */
+    CompletableFuture<BatchSubmission> submitMatching(String pattern, int priority);
+
     void displaySubmissionQueue();
 }
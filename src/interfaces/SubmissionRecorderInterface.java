@@ -0,0 +1,13 @@
+package interfaces;
+
+import program.Program;
+
+public interface SubmissionRecorderInterface {
+    /**
+     * @param tick The tick of the simulation at which the program was submitted
+     * @param program The program that was submitted
+     * @param priority The priority it was submitted at
+     * @param affinity The CPU it was pinned to, or {@link simulation.SimulatedProcess#NO_AFFINITY}
+     */
+    void recordSubmission(long tick, Program program, int priority, int affinity);
+}
@@ -0,0 +1,17 @@
+package interfaces;
+
+/**
+ * A scheduler that can be driven in virtual time on the calling thread, instead of by its own threads.
+ */
+public interface VirtualTimeInterface {
+    /**
+     * @param tick The tick to stop at.
+     * Runs the simulation until the clock reaches the given tick.
+     */
+    void runUntil(long tick);
+
+    /**
+     * Runs the simulation until every process added so far is done.
+     */
+    void runToCompletion();
+}
@@ -0,0 +1,176 @@
+package metrics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A histogram of non-negative values with logarithmic buckets.
+ * Values below 32 are counted exactly, and larger values fall into buckets that are at most 1/16 of their value wide,
+ * so percentiles are accurate to about 6%. Recording a value is a few arithmetic operations on a fixed-size array,
+ * and never allocates.
+ */
+public class LogHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + 2 * SUB_BUCKET_COUNT;
+
+    private final long[] counts;
+    private long count;
+    private long sum;
+    private long min;
+    private long max;
+
+    public LogHistogram() {
+        counts = new long[BUCKET_COUNT];
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    private LogHistogram(LogHistogram other) {
+        counts = other.counts.clone();
+        count = other.count;
+        sum = other.sum;
+        min = other.min;
+        max = other.max;
+    }
+
+    /**
+     * @param value The value to record. Negative values are recorded as 0.
+     */
+    public void record(long value) {
+        value = Math.max(value, 0);
+        counts[bucketOf(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * @param other A histogram whose values are added to this one
+     */
+    public void add(LogHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public LogHistogram copy() {
+        return new LogHistogram(this);
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * @param out Where to write the histogram.
+     * Writes only the buckets that hold values, so that {@link #readFrom} gives back an identical histogram.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeLong(sum);
+        out.writeLong(min);
+        out.writeLong(max);
+        int used = 0;
+        for (long bucketCount : counts) {
+            if (bucketCount != 0) {
+                used++;
+            }
+        }
+        out.writeInt(used);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts[i] != 0) {
+                out.writeShort(i);
+                out.writeLong(counts[i]);
+            }
+        }
+    }
+
+    /**
+     * @param in Where to read the histogram from.
+     * Replaces the values of this histogram with the ones written by {@link #writeTo}.
+     */
+    public void readFrom(DataInput in) throws IOException {
+        clear();
+        count = in.readLong();
+        sum = in.readLong();
+        min = in.readLong();
+        max = in.readLong();
+        int used = in.readInt();
+        for (int i = 0; i < used; i++) {
+            int bucket = in.readUnsignedShort();
+            if (bucket >= BUCKET_COUNT) {
+                throw new IOException("Corrupt histogram bucket " + bucket);
+            }
+            counts[bucket] = in.readLong();
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : sum / (double) count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @param percentile The percentile, between 0 and 100
+     * @return The highest value of the bucket holding that percentile, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(Math.max(highestValueOf(i), min), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Values below 2 * SUB_BUCKET_COUNT get a bucket each. Above that, the bucket is given by how far the value
+     * has to be shifted to keep SUB_BUCKET_BITS + 1 significant bits, and by those bits.
+     */
+    private static int bucketOf(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return shift * SUB_BUCKET_COUNT + (int) (value >>> shift);
+    }
+
+    private static long highestValueOf(int bucket) {
+        if (bucket < 2 * SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKET_COUNT - 1;
+        long significant = bucket - shift * SUB_BUCKET_COUNT;
+        return ((significant + 1) << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("mean %.1f, p50 %d, p99 %d, p99.9 %d, max %d",
+                getMean(), getPercentile(50), getPercentile(99), getPercentile(99.9), max);
+    }
+}
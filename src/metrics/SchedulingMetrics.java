@@ -0,0 +1,337 @@
+package metrics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aggregated scheduling statistics of a simulation, with all times in ticks.
+ * The scheduler records into a live instance while it runs and hands out copies, so readers never see it change.
+ * Copies from several cores can be merged into fleet-wide numbers.
+ */
+public class SchedulingMetrics {
+    private final LogHistogram turnaroundTime;
+    private final LogHistogram waitingTime;
+    private final LogHistogram responseTime;
+    private final LogHistogram blockedTime;
+    private final LogHistogram longestWait;
+    private final TreeMap<Integer, LogHistogram> turnaroundTimeByPriority;
+    private final LogHistogram timeSlices;
+    private final LogHistogram ioQueueWait;
+    private long completedCount;
+    private long busyTicks;
+    private long totalTicks;
+    private long elapsedTicks;
+    private long agingCount;
+    private long contextSwitchCount;
+
+    public SchedulingMetrics() {
+        turnaroundTime = new LogHistogram();
+        waitingTime = new LogHistogram();
+        responseTime = new LogHistogram();
+        blockedTime = new LogHistogram();
+        longestWait = new LogHistogram();
+        turnaroundTimeByPriority = new TreeMap<>();
+        timeSlices = new LogHistogram();
+        ioQueueWait = new LogHistogram();
+        completedCount = 0;
+        busyTicks = 0;
+        totalTicks = 0;
+        elapsedTicks = 0;
+        agingCount = 0;
+        contextSwitchCount = 0;
+    }
+
+    private SchedulingMetrics(SchedulingMetrics other) {
+        turnaroundTime = other.turnaroundTime.copy();
+        waitingTime = other.waitingTime.copy();
+        responseTime = other.responseTime.copy();
+        blockedTime = other.blockedTime.copy();
+        longestWait = other.longestWait.copy();
+        turnaroundTimeByPriority = new TreeMap<>();
+        for (Map.Entry<Integer, LogHistogram> entry : other.turnaroundTimeByPriority.entrySet()) {
+            turnaroundTimeByPriority.put(entry.getKey(), entry.getValue().copy());
+        }
+        timeSlices = other.timeSlices.copy();
+        ioQueueWait = other.ioQueueWait.copy();
+        completedCount = other.completedCount;
+        busyTicks = other.busyTicks;
+        totalTicks = other.totalTicks;
+        elapsedTicks = other.elapsedTicks;
+        agingCount = other.agingCount;
+        contextSwitchCount = other.contextSwitchCount;
+    }
+
+    /**
+     * @param arrivalTick When the process arrived in the scheduler
+     * @param firstRunTick When the process first got the CPU
+     * @param completionTick When the process finished
+     * @param readyWaitTicks How long the process waited in the ready queues, in total
+     * @param blockedTicks How long the process was blocked, in total
+     * @param longestWaitTicks The longest the process waited in the ready queues in one go, which shows starvation
+     * @param priority The priority the process was submitted with
+     */
+    public void recordCompletion(long arrivalTick, long firstRunTick, long completionTick,
+                                 long readyWaitTicks, long blockedTicks, long longestWaitTicks, int priority) {
+        completedCount++;
+        turnaroundTime.record(completionTick - arrivalTick);
+        responseTime.record(firstRunTick - arrivalTick);
+        waitingTime.record(readyWaitTicks);
+        blockedTime.record(blockedTicks);
+        longestWait.record(longestWaitTicks);
+        turnaroundTimeByPriority.computeIfAbsent(priority, key -> new LogHistogram()).record(completionTick - arrivalTick);
+    }
+
+    /**
+     * @param agingCount The number of times the policy raised a waiting process so far
+     */
+    public void setAgingCount(long agingCount) {
+        this.agingCount = agingCount;
+    }
+
+    /**
+     * @param timeSlices The time slices the policy gave so far, which replace the ones recorded before
+     */
+    public void setTimeSlices(LogHistogram timeSlices) {
+        this.timeSlices.clear();
+        this.timeSlices.add(timeSlices);
+    }
+
+    /**
+     * @param ioQueueWait How long the requests to the devices waited for their service to start, which replaces what was recorded before
+     */
+    public void setIoQueueWait(LogHistogram ioQueueWait) {
+        this.ioQueueWait.clear();
+        this.ioQueueWait.add(ioQueueWait);
+    }
+
+    /**
+     * Counts a dispatch of a different process than the one that ran last.
+     */
+    public void recordContextSwitch() {
+        contextSwitchCount++;
+    }
+
+    /**
+     * Records a tick in which the CPU ran a process.
+     */
+    public void recordBusyTick() {
+        busyTicks++;
+    }
+
+    /**
+     * @param ticks The number of ticks in a row the CPU was busy for
+     */
+    public void recordBusyTicks(long ticks) {
+        busyTicks += ticks;
+    }
+
+    /**
+     * @return A copy of these metrics, as of the given tick of a single CPU
+     */
+    public SchedulingMetrics snapshot(long clock) {
+        SchedulingMetrics snapshot = new SchedulingMetrics(this);
+        snapshot.totalTicks = clock;
+        snapshot.elapsedTicks = clock;
+        return snapshot;
+    }
+
+    /**
+     * @param other The metrics of another CPU, which ran alongside this one.
+     * Adds the other metrics into these.
+     */
+    public void merge(SchedulingMetrics other) {
+        turnaroundTime.add(other.turnaroundTime);
+        waitingTime.add(other.waitingTime);
+        responseTime.add(other.responseTime);
+        blockedTime.add(other.blockedTime);
+        longestWait.add(other.longestWait);
+        for (Map.Entry<Integer, LogHistogram> entry : other.turnaroundTimeByPriority.entrySet()) {
+            turnaroundTimeByPriority.computeIfAbsent(entry.getKey(), key -> new LogHistogram()).add(entry.getValue());
+        }
+        completedCount += other.completedCount;
+        busyTicks += other.busyTicks;
+        totalTicks += other.totalTicks;
+        elapsedTicks = Math.max(elapsedTicks, other.elapsedTicks);
+        agingCount += other.agingCount;
+        timeSlices.add(other.timeSlices);
+        ioQueueWait.add(other.ioQueueWait);
+        contextSwitchCount += other.contextSwitchCount;
+    }
+
+    public void clear() {
+        turnaroundTime.clear();
+        waitingTime.clear();
+        responseTime.clear();
+        blockedTime.clear();
+        longestWait.clear();
+        turnaroundTimeByPriority.clear();
+        timeSlices.clear();
+        ioQueueWait.clear();
+        completedCount = 0;
+        busyTicks = 0;
+        agingCount = 0;
+        contextSwitchCount = 0;
+    }
+
+    /**
+     * @param out Where to write the metrics, so that {@link #readFrom} gives them back.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        for (LogHistogram histogram : histograms()) {
+            histogram.writeTo(out);
+        }
+        out.writeInt(turnaroundTimeByPriority.size());
+        for (Map.Entry<Integer, LogHistogram> entry : turnaroundTimeByPriority.entrySet()) {
+            out.writeInt(entry.getKey());
+            entry.getValue().writeTo(out);
+        }
+        out.writeLong(completedCount);
+        out.writeLong(busyTicks);
+        out.writeLong(totalTicks);
+        out.writeLong(elapsedTicks);
+        out.writeLong(agingCount);
+        out.writeLong(contextSwitchCount);
+    }
+
+    /**
+     * @param in Where to read the metrics from.
+     * Replaces these metrics with the ones written by {@link #writeTo}.
+     */
+    public void readFrom(DataInput in) throws IOException {
+        for (LogHistogram histogram : histograms()) {
+            histogram.readFrom(in);
+        }
+        turnaroundTimeByPriority.clear();
+        int priorityCount = in.readInt();
+        for (int i = 0; i < priorityCount; i++) {
+            LogHistogram histogram = new LogHistogram();
+            turnaroundTimeByPriority.put(in.readInt(), histogram);
+            histogram.readFrom(in);
+        }
+        completedCount = in.readLong();
+        busyTicks = in.readLong();
+        totalTicks = in.readLong();
+        elapsedTicks = in.readLong();
+        agingCount = in.readLong();
+        contextSwitchCount = in.readLong();
+    }
+
+    private LogHistogram[] histograms() {
+        return new LogHistogram[]{turnaroundTime, waitingTime, responseTime, blockedTime, longestWait, timeSlices, ioQueueWait};
+    }
+
+    public LogHistogram getTurnaroundTime() {
+        return turnaroundTime;
+    }
+
+    public LogHistogram getWaitingTime() {
+        return waitingTime;
+    }
+
+    public LogHistogram getResponseTime() {
+        return responseTime;
+    }
+
+    public LogHistogram getBlockedTime() {
+        return blockedTime;
+    }
+
+    /**
+     * @return For every completed process, the longest it waited in the ready queues without running
+     */
+    public LogHistogram getLongestWait() {
+        return longestWait;
+    }
+
+    /**
+     * @return The turnaround times of the completed processes, by the priority they were submitted with
+     */
+    public Map<Integer, LogHistogram> getTurnaroundTimeByPriority() {
+        return turnaroundTimeByPriority;
+    }
+
+    public long getAgingCount() {
+        return agingCount;
+    }
+
+    /**
+     * @return The time slices the policy gave, in ticks
+     */
+    public LogHistogram getTimeSlices() {
+        return timeSlices;
+    }
+
+    /**
+     * @return How long the requests to the devices waited for their service to start, in ticks
+     */
+    public LogHistogram getIoQueueWait() {
+        return ioQueueWait;
+    }
+
+    /**
+     * @return The number of times the CPU went to a different process than the one that ran last
+     */
+    public long getContextSwitchCount() {
+        return contextSwitchCount;
+    }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    public long getElapsedTicks() {
+        return elapsedTicks;
+    }
+
+    /**
+     * @return The number of processes completed per tick
+     */
+    public double getThroughput() {
+        return elapsedTicks == 0 ? 0 : completedCount / (double) elapsedTicks;
+    }
+
+    /**
+     * @return The fraction of CPU ticks spent running a process, between 0 and 1
+     */
+    public double getCpuUtilization() {
+        return totalTicks == 0 ? 0 : busyTicks / (double) totalTicks;
+    }
+
+    /**
+     * The turnaround time by priority is only shown when processes were submitted with a priority,
+     * the aging count only when the policy raised some process, the time slices only for policies that give them,
+     * and the device queue wait only when some block waited for a device.
+     */
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder()
+                .append(String.format("Completed: %d in %d ticks (throughput %.4f per tick)\n", completedCount, elapsedTicks, getThroughput()))
+                .append(String.format("CPU utilization: %.1f%%\n", getCpuUtilization() * 100))
+                .append("Turnaround time: ").append(turnaroundTime).append("\n")
+                .append("Waiting time: ").append(waitingTime).append("\n")
+                .append("Response time: ").append(responseTime).append("\n")
+                .append("Blocked time: ").append(blockedTime).append("\n")
+                .append("Longest wait: ").append(longestWait).append("\n")
+                .append("Context switches: ").append(contextSwitchCount).append("\n");
+        if (turnaroundTimeByPriority.size() > 1 || (turnaroundTimeByPriority.size() == 1
+                && turnaroundTimeByPriority.firstKey() != 0)) {
+            for (Map.Entry<Integer, LogHistogram> entry : turnaroundTimeByPriority.descendingMap().entrySet()) {
+                description.append("Turnaround time at priority ").append(entry.getKey()).append(": ")
+                        .append(entry.getValue()).append("\n");
+            }
+        }
+        if (ioQueueWait.getCount() > 0) {
+            description.append("I/O queue wait: ").append(ioQueueWait).append("\n");
+        }
+        if (timeSlices.getCount() > 0) {
+            description.append("Time slices: ").append(timeSlices).append("\n");
+        }
+        if (agingCount > 0) {
+            description.append("Aging raises: ").append(agingCount).append("\n");
+        }
+        return description.toString();
+    }
+}
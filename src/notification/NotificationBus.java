@@ -0,0 +1,114 @@
+package notification;
+
+import interfaces.NotificationInterface;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands notifications from the schedulers over to any number of observers, without ever blocking the publisher.
+ * Every notification belongs to a topic, such as the process queues or the submission queue.
+ * Each observer gets its notifications on its own executor, e.g. the Swing event dispatch thread for the user interface,
+ * and when notifications arrive faster than an observer takes them, it only gets the latest one of each topic.
+ */
+public class NotificationBus {
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * @param observer The observer to be notified.
+     * @param executor Where the observer is called. It must run the tasks it gets one at a time, in order.
+     */
+    public void subscribe(NotificationInterface observer, Executor executor) {
+        subscriptions.add(new Subscription(observer, executor));
+    }
+
+    /**
+     * @param topic The topic of the notifications
+     * @return An observer that publishes everything it is given on the topic, to be handed to a scheduler
+     */
+    public NotificationInterface publisher(String topic) {
+        return info -> publish(topic, info);
+    }
+
+    /**
+     * @param topic The topic of the notification.
+     * @param info The notification.
+     * Queues the notification for every observer. This never blocks, whatever the observers are doing.
+     */
+    public void publish(String topic, String info) {
+        publishedCount.incrementAndGet();
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(new Notification(topic, info));
+        }
+    }
+
+    /**
+     * @return The number of notifications published so far
+     */
+    public long getPublishedCount() {
+        return publishedCount.get();
+    }
+
+    /**
+     * @return The number of deliveries that were dropped because a newer notification of the same topic replaced them
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    private static class Notification {
+        private final String topic;
+        private final String info;
+
+        Notification(String topic, String info) {
+            this.topic = topic;
+            this.info = info;
+        }
+    }
+
+    /**
+     * An observer, along with the notifications waiting for it.
+     * At most one delivery task per observer is waiting on the executor at any time.
+     */
+    private class Subscription {
+        private final NotificationInterface observer;
+        private final Executor executor;
+        private final Queue<Notification> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        Subscription(NotificationInterface observer, Executor executor) {
+            this.observer = observer;
+            this.executor = executor;
+        }
+
+        void offer(Notification notification) {
+            pending.add(notification);
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::deliver);
+            }
+        }
+
+        private void deliver() {
+            // Cleared first, so a notification published from now on schedules another delivery
+            scheduled.set(false);
+            Map<String, String> latest = new LinkedHashMap<>();
+            for (Notification notification = pending.poll(); notification != null; notification = pending.poll()) {
+                if (latest.put(notification.topic, notification.info) != null) {
+                    coalescedCount.incrementAndGet();
+                }
+            }
+            for (String info : latest.values()) {
+                observer.display(info);
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package policy;
+
+import metrics.LogHistogram;
+import simulation.SimulatedProcess;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Round robin with a time slice per process, sized from the CPU bursts the process ran so far.
+ * Every process keeps an exponentially weighted average of the length of its CPU bursts, and gets a time slice
+ * a little longer than that, within the configured bounds, so that most of its bursts end in a block rather than
+ * in a switch to another process. A process whose bursts reach the longest slice is CPU-bound: it gets the longest
+ * slice, and runs only when no IO-bound process is ready, so the short bursts of IO-bound processes never wait behind it.
+ * With equal bounds this is plain round robin with a fixed time slice and a single queue, the baseline to compare with.
+ */
+public class AdaptiveQuantumPolicy implements SchedulingPolicy {
+    private static final int DEFAULT_MIN_SLICE = 2;
+    private static final int DEFAULT_MAX_SLICE = 32;
+    private static final int DEFAULT_FIXED_SLICE = 8;
+    /**
+     * The weight of the latest burst in the average, as in the usual estimate of the next CPU burst
+     */
+    private static final double BURST_WEIGHT = 0.5;
+    /**
+     * How much longer than the estimated burst the slice is, so that bursts a bit longer than usual still fit
+     */
+    private static final double SLICE_HEADROOM = 1.5;
+
+    private final Deque<SimulatedProcess> ioBoundQueue = new ArrayDeque<>();
+    private final Deque<SimulatedProcess> cpuBoundQueue = new ArrayDeque<>();
+    private final int minSlice;
+    private final int maxSlice;
+    private final LogHistogram timeSlices = new LogHistogram();
+
+    public AdaptiveQuantumPolicy() {
+        this(DEFAULT_MIN_SLICE, DEFAULT_MAX_SLICE);
+    }
+
+    /**
+     * @param minSlice The shortest time slice a process gets, in ticks, at least 1.
+     * @param maxSlice The longest time slice a process gets, in ticks, which CPU-bound processes get.
+     */
+    public AdaptiveQuantumPolicy(int minSlice, int maxSlice) {
+        if (minSlice < 1 || maxSlice < minSlice) {
+            throw new IllegalArgumentException("Invalid time slice bounds: " + minSlice + ".." + maxSlice);
+        }
+        this.minSlice = minSlice;
+        this.maxSlice = maxSlice;
+    }
+
+    /**
+     * @return Round robin with the default fixed time slice
+     */
+    public static AdaptiveQuantumPolicy fixed() {
+        return new AdaptiveQuantumPolicy(DEFAULT_FIXED_SLICE, DEFAULT_FIXED_SLICE);
+    }
+
+    /**
+     * New processes are expected to be IO-bound, until their bursts show otherwise.
+     */
+    @Override
+    public void add(SimulatedProcess process) {
+        ProcessState state = new ProcessState();
+        state.estimate = minSlice;
+        process.setSchedulingState(state);
+        ready(process);
+    }
+
+    @Override
+    public SimulatedProcess pickNext() {
+        if (!ioBoundQueue.isEmpty()) {
+            return ioBoundQueue.remove();
+        }
+        return cpuBoundQueue.poll();
+    }
+
+    /**
+     * Keeps the process at the head of its queue until its slice is used up,
+     * and then puts it at the back with a new slice, sized from how long the current burst got.
+     */
+    @Override
+    public void requeue(SimulatedProcess process) {
+        ProcessState state = state(process);
+        state.sliceUsed++;
+        state.burst++;
+        Deque<SimulatedProcess> queue = queue(state);
+        if (state.sliceUsed < state.slice) {
+            queue.addFirst(process);
+        } else {
+            state.sliceUsed = 0;
+            state.slice = chooseSlice(state);
+            queue.addLast(process);
+        }
+    }
+
+    /**
+     * The process keeps the CPU for as long as every requeue puts it ahead of every other ready process.
+     */
+    @Override
+    public long keepRunning(SimulatedProcess process, long ticks) {
+        ProcessState state = state(process);
+        long kept = 0;
+        while (kept < ticks && staysAtHead(state)) {
+            requeue(process);
+            pickNext();
+            kept++;
+        }
+        return kept;
+    }
+
+    /**
+     * @return Whether {@link #requeue} would put the process, which was just picked, ahead of every other ready process
+     */
+    private boolean staysAtHead(ProcessState state) {
+        state.burst++;
+        boolean cpuBound = isCpuBound(state);
+        state.burst--;
+        if (cpuBound && !ioBoundQueue.isEmpty()) {
+            return false;
+        }
+        return state.sliceUsed + 1 < state.slice || (cpuBound ? cpuBoundQueue : ioBoundQueue).isEmpty();
+    }
+
+    /**
+     * Folds the burst that just ended into the estimate of the process.
+     */
+    @Override
+    public void blocked(SimulatedProcess process) {
+        ProcessState state = state(process);
+        // The block instruction ran in the last tick of the burst
+        state.burst++;
+        state.estimate = BURST_WEIGHT * state.burst + (1 - BURST_WEIGHT) * state.estimate;
+        state.burst = 0;
+        state.sliceUsed = 0;
+    }
+
+    @Override
+    public void ready(SimulatedProcess process) {
+        ProcessState state = state(process);
+        state.sliceUsed = 0;
+        state.slice = chooseSlice(state);
+        queue(state).addLast(process);
+    }
+
+    /**
+     * @return The time slice for the process, recorded as one decision
+     */
+    private int chooseSlice(ProcessState state) {
+        double expected = Math.max(state.estimate, state.burst) * SLICE_HEADROOM;
+        int slice = (int) Math.max(minSlice, Math.min(maxSlice, Math.ceil(expected)));
+        timeSlices.record(slice);
+        return slice;
+    }
+
+    /**
+     * @return Whether the process runs bursts as long as the longest slice, either usually or right now.
+     * There is only one class with a fixed time slice.
+     */
+    private boolean isCpuBound(ProcessState state) {
+        return minSlice < maxSlice && Math.max(state.estimate, state.burst) >= maxSlice;
+    }
+
+    private Deque<SimulatedProcess> queue(ProcessState state) {
+        return isCpuBound(state) ? cpuBoundQueue : ioBoundQueue;
+    }
+
+    /**
+     * Gives away the most recently queued CPU-bound process, or else the most recently queued IO-bound one.
+     */
+    @Override
+    public SimulatedProcess steal(int thiefCore) {
+        for (Deque<SimulatedProcess> queue : List.of(cpuBoundQueue, ioBoundQueue)) {
+            Iterator<SimulatedProcess> iterator = queue.descendingIterator();
+            while (iterator.hasNext()) {
+                SimulatedProcess process = iterator.next();
+                if (SchedulingPolicy.canMoveTo(process, thiefCore)) {
+                    iterator.remove();
+                    state(process).sliceUsed = 0;
+                    return process;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return ioBoundQueue.size() + cpuBoundQueue.size();
+    }
+
+    @Override
+    public void clear() {
+        ioBoundQueue.clear();
+        cpuBoundQueue.clear();
+    }
+
+    @Override
+    public Map<String, List<SimulatedProcess>> getReadyQueues() {
+        Map<String, List<SimulatedProcess>> queues = new LinkedHashMap<>();
+        queues.put("IO-bound queue", List.copyOf(ioBoundQueue));
+        queues.put("CPU-bound queue", List.copyOf(cpuBoundQueue));
+        return queues;
+    }
+
+    /**
+     * @return Every time slice given so far, in ticks
+     */
+    @Override
+    public LogHistogram getTimeSlices() {
+        return timeSlices.copy();
+    }
+
+    @Override
+    public void writeState(DataOutput out, ToIntFunction<SimulatedProcess> ids) throws IOException {
+        out.writeLong(minSlice);
+        out.writeLong(maxSlice);
+        SchedulingPolicy.writeQueue(out, ioBoundQueue, ids);
+        SchedulingPolicy.writeQueue(out, cpuBoundQueue, ids);
+        timeSlices.writeTo(out);
+    }
+
+    @Override
+    public void readState(DataInput in, IntFunction<SimulatedProcess> processes) throws IOException {
+        SchedulingPolicy.readSetting(in, minSlice, "shortest time slice");
+        SchedulingPolicy.readSetting(in, maxSlice, "longest time slice");
+        SchedulingPolicy.readQueue(in, ioBoundQueue, processes);
+        SchedulingPolicy.readQueue(in, cpuBoundQueue, processes);
+        timeSlices.readFrom(in);
+    }
+
+    @Override
+    public void writeProcessState(DataOutput out, SimulatedProcess process) throws IOException {
+        ProcessState state = state(process);
+        out.writeDouble(state.estimate);
+        out.writeLong(state.burst);
+        out.writeInt(state.slice);
+        out.writeInt(state.sliceUsed);
+    }
+
+    @Override
+    public void readProcessState(DataInput in, SimulatedProcess process) throws IOException {
+        ProcessState state = new ProcessState();
+        state.estimate = in.readDouble();
+        state.burst = in.readLong();
+        state.slice = in.readInt();
+        state.sliceUsed = in.readInt();
+        process.setSchedulingState(state);
+    }
+
+    private static ProcessState state(SimulatedProcess process) {
+        return (ProcessState) process.getSchedulingState();
+    }
+
+    private static class ProcessState {
+        /**
+         * The average length of the CPU bursts of the process, in ticks
+         */
+        private double estimate = 0;
+        /**
+         * The ticks the process ran since it last became ready
+         */
+        private long burst = 0;
+        private int slice = 1;
+        private int sliceUsed = 0;
+    }
+}
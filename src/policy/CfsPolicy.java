@@ -0,0 +1,202 @@
+package policy;
+
+import simulation.SimulatedProcess;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * A policy in the style of Linux's completely fair scheduler.
+ * Every process accumulates virtual runtime while it runs, and the ready process with the least virtual runtime
+ * runs next. The ready set is a red-black tree (a TreeSet) ordered by virtual runtime, so picking is O(log n).
+ * The running process keeps the CPU until it gets more than a granularity ahead of the leftmost process,
+ * and processes that wake up are placed near the minimum virtual runtime, so sleeping earns little credit.
+ */
+public class CfsPolicy implements SchedulingPolicy {
+    private static final long DEFAULT_GRANULARITY = 3;
+    private static final long DEFAULT_SLEEPER_CREDIT = 2;
+
+    private final TreeSet<SimulatedProcess> tree = new TreeSet<>(
+            Comparator.comparingLong((SimulatedProcess process) -> state(process).vruntime)
+                    .thenComparingLong(process -> state(process).sequence));
+    private final long granularity;
+    private final long sleeperCredit;
+    private SimulatedProcess current;
+    private long minVruntime;
+    private long nextSequence;
+
+    public CfsPolicy() {
+        this(DEFAULT_GRANULARITY, DEFAULT_SLEEPER_CREDIT);
+    }
+
+    /**
+     * @param granularity How far, in ticks of virtual runtime, the running process may get ahead of the leftmost one.
+     * @param sleeperCredit How far behind the minimum virtual runtime a waking process is placed.
+     */
+    public CfsPolicy(long granularity, long sleeperCredit) {
+        this.granularity = granularity;
+        this.sleeperCredit = sleeperCredit;
+        current = null;
+        minVruntime = 0;
+        nextSequence = 0;
+    }
+
+    @Override
+    public void add(SimulatedProcess process) {
+        ProcessState state = new ProcessState();
+        state.vruntime = minVruntime;
+        process.setSchedulingState(state);
+        insert(process);
+    }
+
+    @Override
+    public SimulatedProcess pickNext() {
+        if (current != null) {
+            SimulatedProcess process = current;
+            current = null;
+            if (tree.isEmpty() || state(process).vruntime <= state(tree.first()).vruntime + granularity) {
+                return process;
+            }
+            insert(process);
+        }
+        SimulatedProcess process = tree.pollFirst();
+        if (process != null) {
+            minVruntime = Math.max(minVruntime, state(process).vruntime);
+        }
+        return process;
+    }
+
+    /**
+     * Charges the tick to the process, and lets it keep the CPU while it is within the granularity.
+     */
+    @Override
+    public void requeue(SimulatedProcess process) {
+        state(process).vruntime++;
+        current = process;
+    }
+
+    /**
+     * The process keeps the CPU until it is more than a granularity ahead of the leftmost process, if there is one.
+     */
+    @Override
+    public long keepRunning(SimulatedProcess process, long ticks) {
+        ProcessState state = state(process);
+        long kept = ticks;
+        if (!tree.isEmpty()) {
+            kept = Math.max(0, Math.min(ticks, state(tree.first()).vruntime + granularity - state.vruntime));
+        }
+        state.vruntime += kept;
+        return kept;
+    }
+
+    @Override
+    public void blocked(SimulatedProcess process) {
+        state(process).vruntime++;
+    }
+
+    @Override
+    public void ready(SimulatedProcess process) {
+        ProcessState state = state(process);
+        state.vruntime = Math.max(state.vruntime, minVruntime - sleeperCredit);
+        insert(process);
+    }
+
+    private void insert(SimulatedProcess process) {
+        state(process).sequence = nextSequence++;
+        tree.add(process);
+    }
+
+    /**
+     * Gives away the process with the most virtual runtime.
+     */
+    @Override
+    public SimulatedProcess steal(int thiefCore) {
+        Iterator<SimulatedProcess> iterator = tree.descendingIterator();
+        while (iterator.hasNext()) {
+            SimulatedProcess process = iterator.next();
+            if (SchedulingPolicy.canMoveTo(process, thiefCore)) {
+                iterator.remove();
+                return process;
+            }
+        }
+        if (current != null && SchedulingPolicy.canMoveTo(current, thiefCore)) {
+            SimulatedProcess process = current;
+            current = null;
+            return process;
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return tree.size() + (current == null ? 0 : 1);
+    }
+
+    @Override
+    public void clear() {
+        tree.clear();
+        current = null;
+    }
+
+    @Override
+    public Map<String, List<SimulatedProcess>> getReadyQueues() {
+        Map<String, List<SimulatedProcess>> queues = new LinkedHashMap<>();
+        queues.put("Running", current == null ? List.of() : List.of(current));
+        queues.put("Virtual runtime tree", List.copyOf(tree));
+        return queues;
+    }
+
+    @Override
+    public void writeState(DataOutput out, ToIntFunction<SimulatedProcess> ids) throws IOException {
+        out.writeLong(granularity);
+        out.writeLong(sleeperCredit);
+        out.writeInt(current == null ? -1 : ids.applyAsInt(current));
+        SchedulingPolicy.writeQueue(out, tree, ids);
+        out.writeLong(minVruntime);
+        out.writeLong(nextSequence);
+    }
+
+    @Override
+    public void readState(DataInput in, IntFunction<SimulatedProcess> processes) throws IOException {
+        SchedulingPolicy.readSetting(in, granularity, "granularity");
+        SchedulingPolicy.readSetting(in, sleeperCredit, "sleeper credit");
+        int currentId = in.readInt();
+        current = currentId < 0 ? null : processes.apply(currentId);
+        SchedulingPolicy.readQueue(in, tree, processes);
+        minVruntime = in.readLong();
+        nextSequence = in.readLong();
+    }
+
+    @Override
+    public void writeProcessState(DataOutput out, SimulatedProcess process) throws IOException {
+        ProcessState state = state(process);
+        out.writeLong(state.vruntime);
+        out.writeLong(state.sequence);
+    }
+
+    @Override
+    public void readProcessState(DataInput in, SimulatedProcess process) throws IOException {
+        ProcessState state = new ProcessState();
+        state.vruntime = in.readLong();
+        state.sequence = in.readLong();
+        process.setSchedulingState(state);
+    }
+
+    private static ProcessState state(SimulatedProcess process) {
+        return (ProcessState) process.getSchedulingState();
+    }
+
+    private static class ProcessState {
+        private long vruntime = 0;
+        private long sequence = 0;
+    }
+}
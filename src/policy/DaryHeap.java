@@ -0,0 +1,181 @@
+package policy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An indexed d-ary min-heap.
+ * Every entry remembers its index in the heap, so an entry whose key went down can be moved up,
+ * and any entry can be removed, in O(log n) without searching for it.
+ * A wider heap is shallower, which makes adding and moving up cheaper at the cost of more comparisons when polling.
+ *
+ * @param <E> The entries, which must not be in more than one heap at a time
+ */
+class DaryHeap<E extends DaryHeap.Entry> {
+    private final int arity;
+    private final Comparator<? super E> comparator;
+    private Entry[] entries;
+    private int size;
+
+    /**
+     * @param arity The number of children of every node, at least 2.
+     * @param comparator The order of the entries, smallest first.
+     */
+    DaryHeap(int arity, Comparator<? super E> comparator) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("A heap needs an arity of at least 2: " + arity);
+        }
+        this.arity = arity;
+        this.comparator = comparator;
+        entries = new Entry[16];
+        size = 0;
+    }
+
+    void add(E entry) {
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+        }
+        entries[size] = entry;
+        entry.heapIndex = size;
+        size++;
+        siftUp(entry.heapIndex);
+    }
+
+    /**
+     * @return The smallest entry, or null if the heap is empty
+     */
+    E peek() {
+        return size == 0 ? null : get(0);
+    }
+
+    /**
+     * @return The smallest entry, removed from the heap, or null if the heap is empty
+     */
+    E poll() {
+        if (size == 0) {
+            return null;
+        }
+        E first = get(0);
+        remove(first);
+        return first;
+    }
+
+    /**
+     * @param entry An entry of this heap, which is removed.
+     */
+    void remove(E entry) {
+        int index = entry.heapIndex;
+        size--;
+        Entry last = entries[size];
+        entries[size] = null;
+        entry.heapIndex = -1;
+        if (index == size) {
+            return;
+        }
+        entries[index] = last;
+        last.heapIndex = index;
+        siftUp(index);
+        siftDown(last.heapIndex);
+    }
+
+    /**
+     * @param entry An entry of this heap whose key just went down.
+     * Moves the entry up to where it belongs now.
+     */
+    void decreaseKey(E entry) {
+        siftUp(entry.heapIndex);
+    }
+
+    /**
+     * @param index An index from 0 to size - 1.
+     * @return The entry at that index, in no particular order
+     */
+    E get(int index) {
+        @SuppressWarnings("unchecked")
+        E entry = (E) entries[index];
+        return entry;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            entries[i].heapIndex = -1;
+            entries[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * @return The entries, smallest first
+     */
+    List<E> toSortedList() {
+        List<E> sorted = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            sorted.add(get(i));
+        }
+        sorted.sort(comparator);
+        return sorted;
+    }
+
+    private void siftUp(int index) {
+        E entry = get(index);
+        while (index > 0) {
+            int parent = (index - 1) / arity;
+            E parentEntry = get(parent);
+            if (comparator.compare(entry, parentEntry) >= 0) {
+                break;
+            }
+            entries[index] = parentEntry;
+            parentEntry.heapIndex = index;
+            index = parent;
+        }
+        entries[index] = entry;
+        entry.heapIndex = index;
+    }
+
+    private void siftDown(int index) {
+        E entry = get(index);
+        while (true) {
+            int firstChild = index * arity + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            int smallest = firstChild;
+            int lastChild = Math.min(firstChild + arity, size);
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (comparator.compare(get(child), get(smallest)) < 0) {
+                    smallest = child;
+                }
+            }
+            E smallestEntry = get(smallest);
+            if (comparator.compare(smallestEntry, entry) >= 0) {
+                break;
+            }
+            entries[index] = smallestEntry;
+            smallestEntry.heapIndex = index;
+            index = smallest;
+        }
+        entries[index] = entry;
+        entry.heapIndex = index;
+    }
+
+    /**
+     * Something that can be put in a {@link DaryHeap}, which keeps track of where it is.
+     */
+    static class Entry {
+        int heapIndex = -1;
+
+        boolean isInHeap() {
+            return heapIndex >= 0;
+        }
+    }
+}
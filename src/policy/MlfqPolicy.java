@@ -0,0 +1,263 @@
+package policy;
+
+import simulation.SimulatedProcess;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Multi-level feedback queue.
+ * Processes start at the top level and run round robin within their level.
+ * Lower levels get longer time slices, and a process that uses up its allotment at a level moves one level down,
+ * while a process that blocks keeps its level. Every so often all processes are boosted back to the top,
+ * so that CPU-bound processes cannot starve.
+ * Picking the next process looks at no more than one queue per level.
+ */
+public class MlfqPolicy implements SchedulingPolicy {
+    private static final int DEFAULT_LEVELS = 3;
+    private static final int DEFAULT_ALLOTMENT = 4;
+    private static final int DEFAULT_BOOST_INTERVAL = 200;
+
+    private final Deque<SimulatedProcess>[] levels;
+    private final int allotment;
+    private final int boostInterval;
+    private int size;
+    private long dispatchesSinceBoost;
+
+    public MlfqPolicy() {
+        this(DEFAULT_LEVELS, DEFAULT_ALLOTMENT, DEFAULT_BOOST_INTERVAL);
+    }
+
+    /**
+     * @param levelCount The number of priority levels.
+     * @param allotment The number of ticks a process may run at the top level before being demoted.
+     *                  It doubles at every level, as does the time slice (one tick at the top level).
+     * @param boostInterval The number of dispatches between two boosts.
+     */
+    public MlfqPolicy(int levelCount, int allotment, int boostInterval) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Deque<SimulatedProcess>[] levels = new Deque[levelCount];
+        this.levels = levels;
+        for (int i = 0; i < levelCount; i++) {
+            levels[i] = new ArrayDeque<>();
+        }
+        this.allotment = allotment;
+        this.boostInterval = boostInterval;
+        size = 0;
+        dispatchesSinceBoost = 0;
+    }
+
+    @Override
+    public void add(SimulatedProcess process) {
+        process.setSchedulingState(new ProcessState());
+        ready(process);
+    }
+
+    /**
+     * Only a pick that returns a process counts towards the next boost, so polling an empty policy changes nothing.
+     */
+    @Override
+    public SimulatedProcess pickNext() {
+        if (size == 0) {
+            return null;
+        }
+        if (++dispatchesSinceBoost >= boostInterval) {
+            boost();
+        }
+        for (Deque<SimulatedProcess> level : levels) {
+            if (!level.isEmpty()) {
+                size--;
+                return level.remove();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keeps the process at the head of its level until its time slice is used up,
+     * and demotes it once its allotment at this level is used up.
+     */
+    @Override
+    public void requeue(SimulatedProcess process) {
+        ProcessState state = state(process);
+        state.sliceUsed++;
+        state.allotmentUsed++;
+        if (state.allotmentUsed >= allotment << state.level && state.level < levels.length - 1) {
+            state.level++;
+            state.allotmentUsed = 0;
+            state.sliceUsed = 0;
+        }
+        size++;
+        if (state.sliceUsed < 1 << state.level) {
+            levels[state.level].addFirst(process);
+        } else {
+            state.sliceUsed = 0;
+            levels[state.level].addLast(process);
+        }
+    }
+
+    /**
+     * The process keeps the CPU for as long as every requeue puts it at the head of the highest non-empty level.
+     */
+    @Override
+    public long keepRunning(SimulatedProcess process, long ticks) {
+        long kept = 0;
+        while (kept < ticks && staysAtHead(state(process))) {
+            requeue(process);
+            pickNext();
+            kept++;
+        }
+        return kept;
+    }
+
+    /**
+     * @return Whether {@link #requeue} would put the process, which was just picked, ahead of every other ready process.
+     * A boost keeps it ahead too, since the levels above it are empty.
+     */
+    private boolean staysAtHead(ProcessState state) {
+        int level = state.level;
+        boolean first = state.sliceUsed + 1 < 1 << level;
+        if (state.allotmentUsed + 1 >= allotment << level && level < levels.length - 1) {
+            level++;
+            first = true;
+        }
+        for (int i = 0; i < level; i++) {
+            if (!levels[i].isEmpty()) {
+                return false;
+            }
+        }
+        return first || levels[level].isEmpty();
+    }
+
+    @Override
+    public void blocked(SimulatedProcess process) {
+        ProcessState state = state(process);
+        state.sliceUsed = 0;
+        state.allotmentUsed++;
+    }
+
+    @Override
+    public void ready(SimulatedProcess process) {
+        size++;
+        levels[state(process).level].addLast(process);
+    }
+
+    /**
+     * Moves every process back to the top level, keeping the order of the levels.
+     * This is linear in the number of ready processes, but only happens once every boost interval.
+     */
+    private void boost() {
+        dispatchesSinceBoost = 0;
+        for (int i = 1; i < levels.length; i++) {
+            for (SimulatedProcess process : levels[i]) {
+                ProcessState state = state(process);
+                state.level = 0;
+                state.sliceUsed = 0;
+                state.allotmentUsed = 0;
+            }
+            levels[0].addAll(levels[i]);
+            levels[i].clear();
+        }
+    }
+
+    /**
+     * Gives away the most recently queued process of the lowest level.
+     */
+    @Override
+    public SimulatedProcess steal(int thiefCore) {
+        for (int i = levels.length - 1; i >= 0; i--) {
+            Iterator<SimulatedProcess> iterator = levels[i].descendingIterator();
+            while (iterator.hasNext()) {
+                SimulatedProcess process = iterator.next();
+                if (SchedulingPolicy.canMoveTo(process, thiefCore)) {
+                    iterator.remove();
+                    size--;
+                    state(process).sliceUsed = 0;
+                    return process;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (Deque<SimulatedProcess> level : levels) {
+            level.clear();
+        }
+        size = 0;
+    }
+
+    @Override
+    public Map<String, List<SimulatedProcess>> getReadyQueues() {
+        Map<String, List<SimulatedProcess>> queues = new LinkedHashMap<>();
+        for (int i = 0; i < levels.length; i++) {
+            queues.put("Level " + i + " queue", List.copyOf(levels[i]));
+        }
+        return queues;
+    }
+
+    @Override
+    public void writeState(DataOutput out, ToIntFunction<SimulatedProcess> ids) throws IOException {
+        out.writeLong(levels.length);
+        out.writeLong(allotment);
+        out.writeLong(boostInterval);
+        for (Deque<SimulatedProcess> level : levels) {
+            SchedulingPolicy.writeQueue(out, level, ids);
+        }
+        out.writeLong(dispatchesSinceBoost);
+    }
+
+    @Override
+    public void readState(DataInput in, IntFunction<SimulatedProcess> processes) throws IOException {
+        SchedulingPolicy.readSetting(in, levels.length, "level count");
+        SchedulingPolicy.readSetting(in, allotment, "allotment");
+        SchedulingPolicy.readSetting(in, boostInterval, "boost interval");
+        for (Deque<SimulatedProcess> level : levels) {
+            SchedulingPolicy.readQueue(in, level, processes);
+            size += level.size();
+        }
+        dispatchesSinceBoost = in.readLong();
+    }
+
+    @Override
+    public void writeProcessState(DataOutput out, SimulatedProcess process) throws IOException {
+        ProcessState state = state(process);
+        out.writeInt(state.level);
+        out.writeInt(state.sliceUsed);
+        out.writeInt(state.allotmentUsed);
+    }
+
+    @Override
+    public void readProcessState(DataInput in, SimulatedProcess process) throws IOException {
+        ProcessState state = new ProcessState();
+        state.level = in.readInt();
+        state.sliceUsed = in.readInt();
+        state.allotmentUsed = in.readInt();
+        process.setSchedulingState(state);
+    }
+
+    private static ProcessState state(SimulatedProcess process) {
+        return (ProcessState) process.getSchedulingState();
+    }
+
+    private static class ProcessState {
+        private int level = 0;
+        private int sliceUsed = 0;
+        private int allotmentUsed = 0;
+    }
+}
@@ -0,0 +1,83 @@
+package policy;
+
+import simulation.SimulatedProcess;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Decides on which node (or core) a newly admitted process runs, when it is not pinned to one.
+ * Strategies may be called from several threads at once.
+ */
+public interface PlacementStrategy {
+    /**
+     * @param process The process to place.
+     * @param nodeCount The number of nodes.
+     * @param loadOf Gives the current load of a node, by index.
+     * @return The index of the node the process goes to
+     */
+    int place(SimulatedProcess process, int nodeCount, IntUnaryOperator loadOf);
+
+    /**
+     * The names {@link #create(String, long)} takes
+     */
+    List<String> NAMES = List.of("least-loaded", "power-of-two", "hash");
+
+    /**
+     * @param name One of "least-loaded", "power-of-two" or "hash".
+     * @param seed The seed of the random choices, for the strategies that make any.
+     * @return A new instance of the named strategy
+     */
+    static PlacementStrategy create(String name, long seed) {
+        return switch (name) {
+            case "least-loaded" -> leastLoaded();
+            case "power-of-two" -> powerOfTwoChoices(seed);
+            case "hash" -> hashAffinity();
+            default -> throw new IllegalArgumentException("Unknown placement strategy: " + name);
+        };
+    }
+
+    /**
+     * @return A strategy that looks at every node and picks the least loaded one, the first one on ties
+     */
+    static PlacementStrategy leastLoaded() {
+        return (process, nodeCount, loadOf) -> {
+            int target = 0;
+            int targetLoad = Integer.MAX_VALUE;
+            for (int node = 0; node < nodeCount; node++) {
+                int load = loadOf.applyAsInt(node);
+                if (load < targetLoad) {
+                    target = node;
+                    targetLoad = load;
+                }
+            }
+            return target;
+        };
+    }
+
+    /**
+     * @param seed The seed of the random choices.
+     * @return A strategy that picks two nodes at random and takes the less loaded one.
+     * It looks at two loads instead of all of them, and still keeps the most loaded node close to the mean.
+     */
+    static PlacementStrategy powerOfTwoChoices(long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        return (process, nodeCount, loadOf) -> {
+            int first;
+            int second;
+            synchronized (rng) {
+                first = rng.nextInt(nodeCount);
+                second = rng.nextInt(nodeCount);
+            }
+            return loadOf.applyAsInt(second) < loadOf.applyAsInt(first) ? second : first;
+        };
+    }
+
+    /**
+     * @return A strategy that always sends the processes of the same program to the same node, whatever the loads
+     */
+    static PlacementStrategy hashAffinity() {
+        return (process, nodeCount, loadOf) -> Math.floorMod(process.getName().hashCode() * 0x9E3779B9, nodeCount);
+    }
+}
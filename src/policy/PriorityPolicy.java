@@ -0,0 +1,284 @@
+package policy;
+
+import simulation.SimulatedProcess;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Preemptive priority scheduling with aging.
+ * The ready process with the highest priority runs next, every tick, so an urgent process that arrives or wakes up
+ * takes the CPU right away. Processes of the same priority take turns.
+ * To keep low priority processes from starving, a process that waits in the ready set is raised by one priority
+ * every aging interval, until it runs again.
+ * The ready set is an indexed d-ary heap, so raising a process is an O(log n) decrease-key.
+ * The processes due for aging are found in a queue ordered by when they are due, so aging never scans the ready set.
+ * Time is counted in dispatches, like in {@link MlfqPolicy}: a process only waits while the CPU runs something else.
+ */
+public class PriorityPolicy implements SchedulingPolicy {
+    private static final int HEAP_ARITY = 4;
+    private static final int DEFAULT_AGING_INTERVAL = 50;
+
+    private final DaryHeap<ProcessState> heap = new DaryHeap<>(HEAP_ARITY,
+            Comparator.comparingLong((ProcessState state) -> -state.getEffectivePriority())
+                    .thenComparingLong(state -> state.sequence));
+    private final ArrayDeque<AgingEntry> agingQueue = new ArrayDeque<>();
+    private final int agingInterval;
+    private long dispatchCount;
+    private long nextSequence;
+    private long agingCount;
+
+    public PriorityPolicy() {
+        this(DEFAULT_AGING_INTERVAL);
+    }
+
+    /**
+     * @param agingInterval The number of dispatches a ready process waits for before it is raised by one priority,
+     *                      at least 2, or 0 to never raise processes.
+     */
+    public PriorityPolicy(int agingInterval) {
+        if (agingInterval < 0 || agingInterval == 1) {
+            throw new IllegalArgumentException("The aging interval must be 0 or at least 2: " + agingInterval);
+        }
+        this.agingInterval = agingInterval;
+        dispatchCount = 0;
+        nextSequence = 0;
+        agingCount = 0;
+    }
+
+    @Override
+    public void add(SimulatedProcess process) {
+        process.setSchedulingState(new ProcessState(process));
+        ready(process);
+    }
+
+    @Override
+    public SimulatedProcess pickNext() {
+        dispatchCount++;
+        age();
+        ProcessState state = heap.poll();
+        return state == null ? null : state.process;
+    }
+
+    /**
+     * The process goes behind the other ready processes of its priority, and loses what it gained by aging.
+     */
+    @Override
+    public void requeue(SimulatedProcess process) {
+        ready(process);
+    }
+
+    @Override
+    public void blocked(SimulatedProcess process) {
+    }
+
+    @Override
+    public void ready(SimulatedProcess process) {
+        ProcessState state = state(process);
+        state.boost = 0;
+        state.sequence = nextSequence++;
+        state.epoch++;
+        heap.add(state);
+        if (agingInterval > 0) {
+            state.nextAging = dispatchCount + agingInterval;
+            agingQueue.add(new AgingEntry(state, state.epoch));
+        }
+    }
+
+    /**
+     * Raises every waiting process that is due.
+     * Every process waits the same interval between raises, so the queue stays ordered by when the processes are due
+     * when a raised process goes back at its end. Entries of processes that ran since they were queued are dropped.
+     */
+    private void age() {
+        while (!agingQueue.isEmpty()) {
+            AgingEntry entry = agingQueue.peek();
+            ProcessState state = entry.state;
+            if (entry.epoch != state.epoch || !state.isInHeap()) {
+                agingQueue.remove();
+                continue;
+            }
+            if (state.nextAging > dispatchCount) {
+                return;
+            }
+            agingQueue.remove();
+            state.boost++;
+            agingCount++;
+            heap.decreaseKey(state);
+            state.nextAging += agingInterval;
+            agingQueue.add(entry);
+        }
+    }
+
+    /**
+     * The process keeps the CPU while its priority is above that of every other ready process,
+     * even if one of them gets raised in the meantime.
+     */
+    @Override
+    public long keepRunning(SimulatedProcess process, long ticks) {
+        if (heap.isEmpty()) {
+            // No process waits, so no process is due for aging
+            dispatchCount += ticks;
+            return ticks;
+        }
+        long kept = 0;
+        while (kept < ticks && process.getPriority() > heap.peek().getEffectivePriority() + 1) {
+            requeue(process);
+            pickNext();
+            kept++;
+        }
+        return kept;
+    }
+
+    /**
+     * Gives away the least urgent process, which would wait the longest here.
+     */
+    @Override
+    public SimulatedProcess steal(int thiefCore) {
+        ProcessState victim = null;
+        for (int i = 0; i < heap.size(); i++) {
+            ProcessState state = heap.get(i);
+            if (SchedulingPolicy.canMoveTo(state.process, thiefCore)
+                    && (victim == null || state.getEffectivePriority() < victim.getEffectivePriority())) {
+                victim = state;
+            }
+        }
+        if (victim == null) {
+            return null;
+        }
+        heap.remove(victim);
+        return victim.process;
+    }
+
+    @Override
+    public int size() {
+        return heap.size();
+    }
+
+    @Override
+    public void clear() {
+        heap.clear();
+        agingQueue.clear();
+    }
+
+    @Override
+    public Map<String, List<SimulatedProcess>> getReadyQueues() {
+        List<SimulatedProcess> processes = new ArrayList<>(heap.size());
+        for (ProcessState state : heap.toSortedList()) {
+            processes.add(state.process);
+        }
+        Map<String, List<SimulatedProcess>> queues = new LinkedHashMap<>();
+        queues.put("Priority heap", processes);
+        return queues;
+    }
+
+    /**
+     * @return The number of times a waiting process was raised by one priority
+     */
+    @Override
+    public long getAgingCount() {
+        return agingCount;
+    }
+
+    /**
+     * Writes the heap in the order of its array, which adding the processes back in that order gives again,
+     * and only the aging entries of processes that are still waiting, since the others would be dropped anyway.
+     */
+    @Override
+    public void writeState(DataOutput out, ToIntFunction<SimulatedProcess> ids) throws IOException {
+        out.writeLong(agingInterval);
+        out.writeInt(heap.size());
+        for (int i = 0; i < heap.size(); i++) {
+            out.writeInt(ids.applyAsInt(heap.get(i).process));
+        }
+        List<SimulatedProcess> waiting = new ArrayList<>();
+        for (AgingEntry entry : agingQueue) {
+            if (entry.epoch == entry.state.epoch && entry.state.isInHeap()) {
+                waiting.add(entry.state.process);
+            }
+        }
+        SchedulingPolicy.writeQueue(out, waiting, ids);
+        out.writeLong(dispatchCount);
+        out.writeLong(nextSequence);
+        out.writeLong(agingCount);
+    }
+
+    @Override
+    public void readState(DataInput in, IntFunction<SimulatedProcess> processes) throws IOException {
+        SchedulingPolicy.readSetting(in, agingInterval, "aging interval");
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            heap.add(state(processes.apply(in.readInt())));
+        }
+        List<SimulatedProcess> waiting = new ArrayList<>();
+        SchedulingPolicy.readQueue(in, waiting, processes);
+        for (SimulatedProcess process : waiting) {
+            ProcessState state = state(process);
+            agingQueue.add(new AgingEntry(state, state.epoch));
+        }
+        dispatchCount = in.readLong();
+        nextSequence = in.readLong();
+        agingCount = in.readLong();
+    }
+
+    @Override
+    public void writeProcessState(DataOutput out, SimulatedProcess process) throws IOException {
+        ProcessState state = state(process);
+        out.writeInt(state.boost);
+        out.writeLong(state.sequence);
+        out.writeLong(state.nextAging);
+        out.writeLong(state.epoch);
+    }
+
+    @Override
+    public void readProcessState(DataInput in, SimulatedProcess process) throws IOException {
+        ProcessState state = new ProcessState(process);
+        state.boost = in.readInt();
+        state.sequence = in.readLong();
+        state.nextAging = in.readLong();
+        state.epoch = in.readLong();
+        process.setSchedulingState(state);
+    }
+
+    private static ProcessState state(SimulatedProcess process) {
+        return (ProcessState) process.getSchedulingState();
+    }
+
+    private static class ProcessState extends DaryHeap.Entry {
+        private final SimulatedProcess process;
+        private int boost = 0;
+        private long sequence = 0;
+        private long nextAging = 0;
+        /**
+         * Counts the times the process became ready, so that aging entries from before it last ran can be told apart
+         */
+        private long epoch = 0;
+
+        private ProcessState(SimulatedProcess process) {
+            this.process = process;
+        }
+
+        private long getEffectivePriority() {
+            return (long) process.getPriority() + boost;
+        }
+    }
+
+    private static class AgingEntry {
+        private final ProcessState state;
+        private final long epoch;
+
+        private AgingEntry(ProcessState state, long epoch) {
+            this.state = state;
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package policy;
+
+import metrics.LogHistogram;
+import simulation.SimulatedProcess;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Decides in which order the short term scheduler runs its ready processes.
+ * A policy owns the structure of the ready set: it is told when processes arrive, run, block and wake up,
+ * and it picks the next process to run.
+ * Per-process state belongs in {@link SimulatedProcess#getSchedulingState()}, so that it follows the process
+ * when it moves between cores.
+ * Policies are not thread safe: the scheduler calls them while holding its mutex.
+ */
+public interface SchedulingPolicy {
+    /**
+     * @param process A process that was just admitted, and is ready to run
+     */
+    void add(SimulatedProcess process);
+
+    /**
+     * @return The next process to run, removed from the ready set, or null if nothing is ready
+     */
+    SimulatedProcess pickNext();
+
+    /**
+     * @param process A process that just ran an instruction and is still ready to run
+     */
+    void requeue(SimulatedProcess process);
+
+    /**
+     * @param process The process that was just picked, which is about to run a run of execute instructions.
+     * @param ticks The most ticks the process could keep the CPU for after the first one, with no other process
+     *              becoming ready and the process neither blocking nor finishing.
+     * @return The number of those ticks for which the policy would requeue the process and pick it again, from 0 to ticks.
+     * The policy is left as if that many requeues and picks happened, with the process picked again.
+     * This lets the scheduler run a whole CPU burst in one step. The instructions have not run yet when this is called.
+     * By default, the process keeps the CPU only while no other process is ready.
+     */
+    default long keepRunning(SimulatedProcess process, long ticks) {
+        if (size() != 0) {
+            return 0;
+        }
+        for (long i = 0; i < ticks; i++) {
+            requeue(process);
+            pickNext();
+        }
+        return ticks;
+    }
+
+    /**
+     * @param process A process that just ran an instruction and got blocked.
+     * The process is not part of the ready set until it is given back through {@link #ready}.
+     */
+    void blocked(SimulatedProcess process);
+
+    /**
+     * @param process A process that becomes ready again, either because it unblocked or because it moved from another core
+     */
+    void ready(SimulatedProcess process);
+
+    /**
+     * @param thiefCore The core that wants to run the process.
+     * @return A ready process that may run on the given core, removed from the ready set, or null if there is none.
+     * The policy should give away the process that would wait the longest here.
+     */
+    SimulatedProcess steal(int thiefCore);
+
+    /**
+     * @return The number of ready processes
+     */
+    int size();
+
+    void clear();
+
+    /**
+     * @return The ready queues of the policy, by name, in display order
+     */
+    Map<String, List<SimulatedProcess>> getReadyQueues();
+
+    /**
+     * @return The number of times a waiting process was raised in priority because it waited too long,
+     * which is always 0 for policies without aging
+     */
+    default long getAgingCount() {
+        return 0;
+    }
+
+    /**
+     * @return The time slices the policy gave so far, in ticks, which is empty for policies that pick again every tick
+     */
+    default LogHistogram getTimeSlices() {
+        return new LogHistogram();
+    }
+
+    /**
+     * @param out Where to write the state.
+     * @param ids Gives the number a process is written as.
+     * Writes the settings of the policy, its ready set in order, and whatever else it keeps besides the state of
+     * each process, so that {@link #readState} goes on exactly where this policy is.
+     */
+    void writeState(DataOutput out, ToIntFunction<SimulatedProcess> ids) throws IOException;
+
+    /**
+     * @param in Where to read the state from.
+     * @param processes Gives back the process written as a number, whose own state was already read.
+     * Reads what {@link #writeState} wrote into this policy, which must be new and have the same settings.
+     */
+    void readState(DataInput in, IntFunction<SimulatedProcess> processes) throws IOException;
+
+    /**
+     * @param out Where to write the state.
+     * @param process A process the policy was given, through {@link #add} or from another core.
+     * Writes the state the policy keeps about the process, in {@link SimulatedProcess#getSchedulingState()}.
+     */
+    void writeProcessState(DataOutput out, SimulatedProcess process) throws IOException;
+
+    /**
+     * @param in Where to read the state from.
+     * @param process A process that is not part of the ready set yet.
+     * Gives the process the state written by {@link #writeProcessState}.
+     */
+    void readProcessState(DataInput in, SimulatedProcess process) throws IOException;
+
+    /**
+     * @param out Where to write the processes.
+     * @param queue Some of the ready processes, in order.
+     * @param ids Gives the number a process is written as.
+     */
+    static void writeQueue(DataOutput out, Collection<SimulatedProcess> queue, ToIntFunction<SimulatedProcess> ids)
+            throws IOException {
+        out.writeInt(queue.size());
+        for (SimulatedProcess process : queue) {
+            out.writeInt(ids.applyAsInt(process));
+        }
+    }
+
+    /**
+     * @param in Where to read the processes from.
+     * @param queue Where to add the processes written by {@link #writeQueue}, in order.
+     * @param processes Gives back the process written as a number.
+     */
+    static void readQueue(DataInput in, Collection<SimulatedProcess> queue, IntFunction<SimulatedProcess> processes)
+            throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            queue.add(processes.apply(in.readInt()));
+        }
+    }
+
+    /**
+     * @param in Where to read a setting of the policy from.
+     * @param expected The value of the setting in this policy.
+     * @param name The name of the setting, for the error.
+     * Checks that the state was written by a policy with the same setting.
+     */
+    static void readSetting(DataInput in, long expected, String name) throws IOException {
+        long setting = in.readLong();
+        if (setting != expected) {
+            throw new IOException(String.format("The state was written with a %s of %d, not %d", name, setting, expected));
+        }
+    }
+
+    /**
+     * @param process A ready process.
+     * @param thiefCore The core that wants to run it.
+     * @return true if the process is allowed to move to that core
+     */
+    static boolean canMoveTo(SimulatedProcess process, int thiefCore) {
+        return process.getAffinity() == SimulatedProcess.NO_AFFINITY || process.getAffinity() == thiefCore;
+    }
+
+    /**
+     * The names {@link #create(String)} takes
+     */
+    List<String> NAMES = List.of("two-queue", "mlfq", "cfs", "srtf", "priority", "adaptive", "round-robin");
+
+    /**
+     * @param name One of "two-queue", "mlfq", "cfs", "srtf", "priority", "adaptive" or "round-robin".
+     * @return A new instance of the named policy, with its default settings
+     */
+    static SchedulingPolicy create(String name) {
+        return switch (name) {
+            case "two-queue" -> new TwoQueuePolicy();
+            case "mlfq" -> new MlfqPolicy();
+            case "cfs" -> new CfsPolicy();
+            case "srtf" -> new SrtfPolicy();
+            case "priority" -> new PriorityPolicy();
+            case "adaptive" -> new AdaptiveQuantumPolicy();
+            case "round-robin" -> AdaptiveQuantumPolicy.fixed();
+            default -> throw new IllegalArgumentException("Unknown scheduling policy: " + name);
+        };
+    }
+}
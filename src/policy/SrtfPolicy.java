@@ -0,0 +1,137 @@
+package policy;
+
+import simulation.SimulatedProcess;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Shortest remaining time first.
+ * The ready process with the fewest instructions left runs next, which preempts a longer process
+ * as soon as a shorter one arrives or wakes up. Ties go to the process that was admitted first.
+ * The ready set is a red-black tree (a TreeSet) ordered by remaining instructions, so picking is O(log n).
+ */
+public class SrtfPolicy implements SchedulingPolicy {
+    private final TreeSet<SimulatedProcess> tree = new TreeSet<>(
+            Comparator.comparingInt((SimulatedProcess process) -> state(process).remaining)
+                    .thenComparingLong(process -> state(process).sequence));
+    private long nextSequence = 0;
+
+    @Override
+    public void add(SimulatedProcess process) {
+        ProcessState state = new ProcessState();
+        state.sequence = nextSequence++;
+        process.setSchedulingState(state);
+        ready(process);
+    }
+
+    @Override
+    public SimulatedProcess pickNext() {
+        return tree.pollFirst();
+    }
+
+    @Override
+    public void requeue(SimulatedProcess process) {
+        ready(process);
+    }
+
+    /**
+     * A running process only gets closer to finishing, so it stays ahead of every other ready process.
+     * Its key is set again when it goes back into the tree.
+     */
+    @Override
+    public long keepRunning(SimulatedProcess process, long ticks) {
+        return ticks;
+    }
+
+    @Override
+    public void blocked(SimulatedProcess process) {
+    }
+
+    /**
+     * The key is only updated here, while the process is out of the tree.
+     */
+    @Override
+    public void ready(SimulatedProcess process) {
+        state(process).remaining = process.getRemainingInstructions();
+        tree.add(process);
+    }
+
+    /**
+     * Gives away the process with the most instructions left.
+     */
+    @Override
+    public SimulatedProcess steal(int thiefCore) {
+        Iterator<SimulatedProcess> iterator = tree.descendingIterator();
+        while (iterator.hasNext()) {
+            SimulatedProcess process = iterator.next();
+            if (SchedulingPolicy.canMoveTo(process, thiefCore)) {
+                iterator.remove();
+                return process;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return tree.size();
+    }
+
+    @Override
+    public void clear() {
+        tree.clear();
+    }
+
+    @Override
+    public Map<String, List<SimulatedProcess>> getReadyQueues() {
+        Map<String, List<SimulatedProcess>> queues = new LinkedHashMap<>();
+        queues.put("Remaining time tree", List.copyOf(tree));
+        return queues;
+    }
+
+    @Override
+    public void writeState(DataOutput out, ToIntFunction<SimulatedProcess> ids) throws IOException {
+        SchedulingPolicy.writeQueue(out, tree, ids);
+        out.writeLong(nextSequence);
+    }
+
+    @Override
+    public void readState(DataInput in, IntFunction<SimulatedProcess> processes) throws IOException {
+        SchedulingPolicy.readQueue(in, tree, processes);
+        nextSequence = in.readLong();
+    }
+
+    @Override
+    public void writeProcessState(DataOutput out, SimulatedProcess process) throws IOException {
+        ProcessState state = state(process);
+        out.writeInt(state.remaining);
+        out.writeLong(state.sequence);
+    }
+
+    @Override
+    public void readProcessState(DataInput in, SimulatedProcess process) throws IOException {
+        ProcessState state = new ProcessState();
+        state.remaining = in.readInt();
+        state.sequence = in.readLong();
+        process.setSchedulingState(state);
+    }
+
+    private static ProcessState state(SimulatedProcess process) {
+        return (ProcessState) process.getSchedulingState();
+    }
+
+    private static class ProcessState {
+        private int remaining = 0;
+        private long sequence = 0;
+    }
+}
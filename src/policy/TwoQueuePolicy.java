@@ -0,0 +1,195 @@
+package policy;
+
+import simulation.SimulatedProcess;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * The original policy of the simulator.
+ * Processes are split between a CPU-bound and an IO-bound queue, depending on whether they blocked
+ * more often than they executed, and every round runs two CPU-bound processes and then one IO-bound process.
+ * New processes start in the CPU-bound queue.
+ */
+public class TwoQueuePolicy implements SchedulingPolicy {
+    /**
+     * The queues visited in one round, true meaning the IO-bound queue
+     */
+    private static final boolean[] ROUND = {false, false, true};
+
+    private final Deque<SimulatedProcess> ioBoundReadyQueue = new ArrayDeque<>();
+    private final Deque<SimulatedProcess> cpuBoundReadyQueue = new ArrayDeque<>();
+    private int roundPosition = 0;
+
+    @Override
+    public void add(SimulatedProcess process) {
+        process.setSchedulingState(new ProcessState());
+        cpuBoundReadyQueue.add(process);
+    }
+
+    /**
+     * @return The process from the next non-empty queue of the round.
+     * Skipping empty queues and starting over after an empty round
+     * gives the same order as trying each queue of the round in turn.
+     */
+    @Override
+    public SimulatedProcess pickNext() {
+        for (int i = 0; i < ROUND.length; i++) {
+            Deque<SimulatedProcess> queue = ROUND[roundPosition] ? ioBoundReadyQueue : cpuBoundReadyQueue;
+            roundPosition = (roundPosition + 1) % ROUND.length;
+            if (!queue.isEmpty()) {
+                return queue.remove();
+            }
+        }
+        roundPosition = 0;
+        return null;
+    }
+
+    @Override
+    public void requeue(SimulatedProcess process) {
+        state(process).executeCount++;
+        ready(process);
+    }
+
+    /**
+     * A process that runs alone settles in the CPU-bound queue, after which the round only alternates
+     * between its last two positions, so all but the first few requeues and picks are counted at once.
+     */
+    @Override
+    public long keepRunning(SimulatedProcess process, long ticks) {
+        if (size() != 0) {
+            return 0;
+        }
+        ProcessState state = state(process);
+        long kept = 0;
+        int cpuBoundPicks = 0;
+        while (kept < ticks && cpuBoundPicks < 2) {
+            requeue(process);
+            pickNext();
+            kept++;
+            cpuBoundPicks = state.isIoBound() ? 0 : cpuBoundPicks + 1;
+        }
+        long skipped = (ticks - kept) / 2 * 2;
+        state.executeCount += (int) skipped;
+        kept += skipped;
+        if (kept < ticks) {
+            requeue(process);
+            pickNext();
+            kept++;
+        }
+        return kept;
+    }
+
+    @Override
+    public void blocked(SimulatedProcess process) {
+        state(process).blockCount++;
+    }
+
+    @Override
+    public void ready(SimulatedProcess process) {
+        if (state(process).isIoBound()) {
+            ioBoundReadyQueue.add(process);
+        } else {
+            cpuBoundReadyQueue.add(process);
+        }
+    }
+
+    /**
+     * Gives away the most recently queued process, preferring CPU-bound ones.
+     */
+    @Override
+    public SimulatedProcess steal(int thiefCore) {
+        SimulatedProcess process = steal(cpuBoundReadyQueue, thiefCore);
+        if (process == null) {
+            process = steal(ioBoundReadyQueue, thiefCore);
+        }
+        return process;
+    }
+
+    private SimulatedProcess steal(Deque<SimulatedProcess> queue, int thiefCore) {
+        Iterator<SimulatedProcess> iterator = queue.descendingIterator();
+        while (iterator.hasNext()) {
+            SimulatedProcess process = iterator.next();
+            if (SchedulingPolicy.canMoveTo(process, thiefCore)) {
+                iterator.remove();
+                return process;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return cpuBoundReadyQueue.size() + ioBoundReadyQueue.size();
+    }
+
+    @Override
+    public void clear() {
+        cpuBoundReadyQueue.clear();
+        ioBoundReadyQueue.clear();
+        roundPosition = 0;
+    }
+
+    @Override
+    public Map<String, List<SimulatedProcess>> getReadyQueues() {
+        Map<String, List<SimulatedProcess>> queues = new LinkedHashMap<>();
+        queues.put("IO-bound queue", List.copyOf(ioBoundReadyQueue));
+        queues.put("CPU-bound queue", List.copyOf(cpuBoundReadyQueue));
+        return queues;
+    }
+
+    @Override
+    public void writeState(DataOutput out, ToIntFunction<SimulatedProcess> ids) throws IOException {
+        SchedulingPolicy.writeQueue(out, ioBoundReadyQueue, ids);
+        SchedulingPolicy.writeQueue(out, cpuBoundReadyQueue, ids);
+        out.writeInt(roundPosition);
+    }
+
+    @Override
+    public void readState(DataInput in, IntFunction<SimulatedProcess> processes) throws IOException {
+        SchedulingPolicy.readQueue(in, ioBoundReadyQueue, processes);
+        SchedulingPolicy.readQueue(in, cpuBoundReadyQueue, processes);
+        roundPosition = in.readInt();
+    }
+
+    @Override
+    public void writeProcessState(DataOutput out, SimulatedProcess process) throws IOException {
+        ProcessState state = state(process);
+        out.writeInt(state.executeCount);
+        out.writeInt(state.blockCount);
+    }
+
+    @Override
+    public void readProcessState(DataInput in, SimulatedProcess process) throws IOException {
+        ProcessState state = new ProcessState();
+        state.executeCount = in.readInt();
+        state.blockCount = in.readInt();
+        process.setSchedulingState(state);
+    }
+
+    private static ProcessState state(SimulatedProcess process) {
+        return (ProcessState) process.getSchedulingState();
+    }
+
+    /**
+     * Stores how the process behaved so far.
+     * It is used to check whether the process should be considered IO-bound or CPU-bound.
+     */
+    private static class ProcessState {
+        private int executeCount = 0;
+        private int blockCount = 0;
+
+        private boolean isIoBound() {
+            return blockCount > executeCount;
+        }
+    }
+}
@@ -1,17 +1,34 @@
 package program;
 
 /**
- * A data class that represents a block instruction, and stores the duration
+ * A data class that represents a block instruction, and stores the duration and the device it waits for
  */
 public class BlockInstruction extends Instruction {
     private final int duration;
+    private final String device;
 
     public BlockInstruction(int duration) {
+        this(duration, null);
+    }
+
+    /**
+     * @param duration The duration of the block, which is also the service time the device is asked for.
+     * @param device The name of the device the block waits for, or null for none.
+     */
+    public BlockInstruction(int duration, String device) {
         super(InstructionType.BLOCK);
         this.duration = duration;
+        this.device = device;
     }
 
     public int getDuration() {
         return duration;
     }
+
+    /**
+     * @return The name of the device the block waits for, or null if it waits for no device
+     */
+    public String getDevice() {
+        return device;
+    }
 }
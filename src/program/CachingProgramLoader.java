@@ -0,0 +1,180 @@
+package program;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A program loader that remembers the programs another loader loaded from files.
+ * Programs are immutable, so every submission of the same file gets the same program instance.
+ * Entries are keyed by the file's path, modification time and size, so an edited file is loaded again.
+ * The cache is bounded by the total number of instructions it holds, and evicts the least recently used programs.
+ * When several threads load the same uncached file at once, only one of them parses it and counts a miss,
+ * and the others wait for its program.
+ */
+public class CachingProgramLoader implements ProgramLoader {
+    private final ProgramLoader loader;
+    private final long capacity;
+    private final LinkedHashMap<Key, Program> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Key, CompletableFuture<Program>> loading = new HashMap<>();
+    private long cachedInstructions = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long waits = 0;
+    private long evictions = 0;
+
+    /**
+     * @param loader The loader that actually reads the files
+     * @param capacity The maximum total number of instructions of the cached programs
+     */
+    public CachingProgramLoader(ProgramLoader loader, long capacity) {
+        this.loader = loader;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public boolean supportsParallelLoading() {
+        return loader.supportsParallelLoading();
+    }
+
+    @Override
+    public Program loadProgram(String fileName) {
+        Key key = Key.of(fileName);
+        if (key == null) {
+            // The loader reports files it cannot read
+            return loader.loadProgram(fileName);
+        }
+        CompletableFuture<Program> pending;
+        boolean shouldLoad = false;
+        synchronized (this) {
+            Program program = cache.get(key);
+            if (program != null) {
+                hits++;
+                return program;
+            }
+            pending = loading.get(key);
+            if (pending == null) {
+                pending = new CompletableFuture<>();
+                loading.put(key, pending);
+                shouldLoad = true;
+                misses++;
+            } else {
+                waits++;
+            }
+        }
+        if (!shouldLoad) {
+            return pending.join();
+        }
+        Program program = null;
+        try {
+            program = loader.loadProgram(fileName);
+        } finally {
+            synchronized (this) {
+                loading.remove(key);
+                if (program != null) {
+                    store(key, program);
+                }
+            }
+            pending.complete(program);
+        }
+        return program;
+    }
+
+    /**
+     * Must be called while holding the lock.
+     */
+    private void store(Key key, Program program) {
+        if (program.size() > capacity) {
+            return;
+        }
+        cache.put(key, program);
+        cachedInstructions += program.size();
+        Iterator<Program> iterator = cache.values().iterator();
+        while (cachedInstructions > capacity) {
+            cachedInstructions -= iterator.next().size();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return The number of loads that waited for another thread to parse the same file, instead of parsing it again
+     */
+    public synchronized long getWaits() {
+        return waits;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return The total number of instructions of the cached programs
+     */
+    public synchronized long getCachedInstructions() {
+        return cachedInstructions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Program cache: %d programs, %d/%d instructions, %d hits, %d misses, %d waits, %d evictions",
+                cache.size(), cachedInstructions, capacity, hits, misses, waits, evictions);
+    }
+
+    /**
+     * Identifies one version of a file
+     */
+    private static class Key {
+        private final Path path;
+        private final long modifiedTime;
+        private final long size;
+
+        private Key(Path path, long modifiedTime, long size) {
+            this.path = path;
+            this.modifiedTime = modifiedTime;
+            this.size = size;
+        }
+
+        /**
+         * @return The key of the file as it is now, or null if the file cannot be read
+         */
+        private static Key of(String fileName) {
+            try {
+                Path path = Paths.get(fileName).toAbsolutePath().normalize();
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return new Key(path, attributes.lastModifiedTime().toMillis(), attributes.size());
+            } catch (IOException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key key)) {
+                return false;
+            }
+            return modifiedTime == key.modifiedTime && size == key.size && path.equals(key.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, modifiedTime, size);
+        }
+    }
+}
@@ -1,23 +1,290 @@
 package program;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * A data class that represents a program to be simulated.
- * It stores the list of instructions, as well as the program name.
+ * It stores the instructions, as well as the program name.
+ * The instructions are run-length encoded in an int array: a positive entry is a run of that many
+ * execute instructions, a BLOCK entry is a block instruction whose duration is the next entry,
+ * and a DEVICE_BLOCK entry is a block instruction on a device, followed by the index of the device name
+ * in the device table of the program and then the duration.
+ * Programs are immutable, so one program can be shared by any number of processes.
  */
 public class Program {
+    static final int BLOCK = -1;
+    static final int DEVICE_BLOCK = -2;
+
     private final String filename;
-    private final List<Instruction> body;
+    private final int[] code;
+    private final int size;
+    private final String[] devices;
+    private List<Instruction> body;
 
     public Program(List<Instruction> body, String filename) {
-        this.body = body;
+        Builder builder = new Builder();
+        for (Instruction instruction : body) {
+            if (instruction instanceof BlockInstruction blockInstruction) {
+                builder.addBlock(blockInstruction.getDevice(), blockInstruction.getDuration());
+            } else {
+                builder.addExecute();
+            }
+        }
+        this.code = builder.trimmedCode();
+        this.size = builder.size;
+        this.devices = builder.devices.toArray(new String[0]);
         this.filename = filename;
     }
-    public List<Instruction> getBody() {
+
+    private Program(int[] code, int size, String[] devices, String filename) {
+        this.code = code;
+        this.size = size;
+        this.devices = devices;
+        this.filename = filename;
+    }
+
+    /**
+     * @return The instructions of the program, as a read-only view that is only built when first asked for.
+     * Running a program should go through {@link #cursor()} instead.
+     */
+    public synchronized List<Instruction> getBody() {
+        if (body == null) {
+            body = new BodyView();
+        }
         return body;
     }
+
     public String getFilename() {
         return filename;
     }
+
+    /**
+     * @return The number of instructions in the program
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return A new cursor at the first instruction of the program
+     */
+    public ProgramCursor cursor() {
+        return new ProgramCursor(code, size, devices);
+    }
+
+    /**
+     * @param in Where to read the cursor from.
+     * @return A cursor on this program, at the position a cursor on it wrote with {@link ProgramCursor#writeTo}
+     */
+    public ProgramCursor readCursor(DataInput in) throws IOException {
+        int codeIndex = in.readInt();
+        int runOffset = in.readInt();
+        int position = in.readInt();
+        if (codeIndex < 0 || codeIndex > code.length || runOffset < 0 || position < 0 || position > size) {
+            throw new IOException("Corrupt cursor in " + filename);
+        }
+        ProgramCursor cursor = cursor();
+        cursor.moveTo(codeIndex, runOffset, position);
+        return cursor;
+    }
+
+    /**
+     * @return The names of the devices the block instructions of the program wait for, each one once
+     */
+    public List<String> getDevices() {
+        return List.of(devices);
+    }
+
+    /**
+     * @param out Where to write the program.
+     * Writes the name, the encoded instructions as they are and the device table,
+     * so that {@link #readFrom} gives back an identical program.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(filename);
+        out.writeInt(size);
+        out.writeInt(code.length);
+        for (int entry : code) {
+            out.writeInt(entry);
+        }
+        out.writeInt(devices.length);
+        for (String device : devices) {
+            out.writeUTF(device);
+        }
+    }
+
+    /**
+     * @param in Where to read the program from.
+     * @return A program written by {@link #writeTo}
+     */
+    public static Program readFrom(DataInput in) throws IOException {
+        return readFrom(in, true);
+    }
+
+    /**
+     * @param in Where to read the program from.
+     * @param withDevices Whether the device table follows the instructions, which it does for every program
+     *                    written since block instructions could wait for a device.
+     * @return A program written by {@link #writeTo}
+     */
+    public static Program readFrom(DataInput in, boolean withDevices) throws IOException {
+        String filename = in.readUTF();
+        int size = in.readInt();
+        int length = in.readInt();
+        if (size < 0 || length < 0) {
+            throw new IOException("Corrupt program encoding");
+        }
+        int[] code = new int[length];
+        for (int i = 0; i < length; i++) {
+            code[i] = in.readInt();
+        }
+        String[] devices = new String[withDevices ? in.readInt() : 0];
+        for (int i = 0; i < devices.length; i++) {
+            devices[i] = in.readUTF();
+        }
+        return new Program(code, size, devices, filename);
+    }
+
+    /**
+     * Builds a program one instruction (or one run of executes) at a time, straight into the compact encoding.
+     */
+    public static class Builder {
+        private int[] code = new int[16];
+        private int length = 0;
+        private int size = 0;
+        private int lastRunIndex = -1;
+        private final List<String> devices = new ArrayList<>();
+
+        public Builder addExecute() {
+            return addExecutes(1);
+        }
+
+        public Builder addExecutes(int count) {
+            if (count <= 0) {
+                return this;
+            }
+            if (lastRunIndex == length - 1 && lastRunIndex >= 0 && code[lastRunIndex] <= Integer.MAX_VALUE - count) {
+                code[lastRunIndex] += count;
+            } else {
+                lastRunIndex = length;
+                append(count);
+            }
+            size += count;
+            return this;
+        }
+
+        public Builder addBlock(int duration) {
+            append(BLOCK);
+            append(duration);
+            size++;
+            return this;
+        }
+
+        /**
+         * @param device The name of the device the block waits for, or null for none.
+         * @param duration The duration of the block.
+         */
+        public Builder addBlock(String device, int duration) {
+            if (device == null) {
+                return addBlock(duration);
+            }
+            int deviceIndex = devices.indexOf(device);
+            if (deviceIndex < 0) {
+                deviceIndex = devices.size();
+                devices.add(device);
+            }
+            append(DEVICE_BLOCK);
+            append(deviceIndex);
+            append(duration);
+            size++;
+            return this;
+        }
+
+        /**
+         * @return The number of instructions added so far
+         */
+        public int size() {
+            return size;
+        }
+
+        public Program build(String filename) {
+            return new Program(trimmedCode(), size, devices.toArray(new String[0]), filename);
+        }
+
+        private void append(int entry) {
+            if (length == code.length) {
+                code = Arrays.copyOf(code, length * 2);
+            }
+            code[length++] = entry;
+        }
+
+        private int[] trimmedCode() {
+            return Arrays.copyOf(code, length);
+        }
+    }
+
+    /**
+     * A list view of the encoded instructions.
+     * Looking up an instruction is a binary search over the positions at which each entry starts.
+     */
+    private class BodyView extends AbstractList<Instruction> {
+        private static final Instruction EXECUTE = new ExecuteInstruction();
+        private final int[] entryIndexes;
+        private final int[] entryPositions;
+        private final int entryCount;
+
+        private BodyView() {
+            int[] indexes = new int[code.length];
+            int[] positions = new int[code.length];
+            int count = 0;
+            int position = 0;
+            for (int i = 0; i < code.length; i++) {
+                indexes[count] = i;
+                positions[count] = position;
+                count++;
+                if (code[i] == BLOCK) {
+                    position++;
+                    i++;
+                } else if (code[i] == DEVICE_BLOCK) {
+                    position++;
+                    i += 2;
+                } else {
+                    position += code[i];
+                }
+            }
+            entryIndexes = indexes;
+            entryPositions = positions;
+            entryCount = count;
+        }
+
+        @Override
+        public Instruction get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            int entry = Arrays.binarySearch(entryPositions, 0, entryCount, index);
+            if (entry < 0) {
+                entry = -entry - 2;
+            }
+            int codeIndex = entryIndexes[entry];
+            if (code[codeIndex] == BLOCK) {
+                return new BlockInstruction(code[codeIndex + 1]);
+            }
+            if (code[codeIndex] == DEVICE_BLOCK) {
+                return new BlockInstruction(code[codeIndex + 2], devices[code[codeIndex + 1]]);
+            }
+            return EXECUTE;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
 }
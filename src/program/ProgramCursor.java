@@ -0,0 +1,112 @@
+package program;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A position in a program, used to run it one instruction at a time.
+ * Moving the cursor never allocates, so every process keeps one for its whole life.
+ */
+public class ProgramCursor {
+    private final int[] code;
+    private final int size;
+    private final String[] devices;
+    private int codeIndex;
+    private int runOffset;
+    private int position;
+
+    ProgramCursor(int[] code, int size, String[] devices) {
+        this.code = code;
+        this.size = size;
+        this.devices = devices;
+        codeIndex = 0;
+        runOffset = 0;
+        position = 0;
+    }
+
+    /**
+     * @return The index of the current instruction, which is also the number of instructions already run
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    public boolean isDone() {
+        return position >= size;
+    }
+
+    /**
+     * @return true if the current instruction is a block instruction
+     */
+    public boolean isBlock() {
+        return code[codeIndex] < 0;
+    }
+
+    /**
+     * @return The duration of the current instruction, which must be a block instruction
+     */
+    public int getBlockDuration() {
+        return code[codeIndex] == Program.DEVICE_BLOCK ? code[codeIndex + 2] : code[codeIndex + 1];
+    }
+
+    /**
+     * @return The name of the device the current instruction waits for, which must be a block instruction,
+     * or null if it waits for no device
+     */
+    public String getBlockDevice() {
+        return code[codeIndex] == Program.DEVICE_BLOCK ? devices[code[codeIndex + 1]] : null;
+    }
+
+    /**
+     * @return The number of execute instructions in a row starting at the current instruction
+     */
+    public int getExecuteRunLength() {
+        if (isDone() || isBlock()) {
+            return 0;
+        }
+        return code[codeIndex] - runOffset;
+    }
+
+    /**
+     * @param count The number of execute instructions to move past, at most {@link #getExecuteRunLength()}.
+     * Moves past part or all of the current run of executes at once.
+     */
+    public void skipExecutes(int count) {
+        runOffset += count;
+        if (runOffset == code[codeIndex]) {
+            codeIndex++;
+            runOffset = 0;
+        }
+        position += count;
+    }
+
+    /**
+     * @param out Where to write the position of the cursor, which {@link Program#readCursor} reads back.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(codeIndex);
+        out.writeInt(runOffset);
+        out.writeInt(position);
+    }
+
+    void moveTo(int codeIndex, int runOffset, int position) {
+        this.codeIndex = codeIndex;
+        this.runOffset = runOffset;
+        this.position = position;
+    }
+
+    /**
+     * Moves to the next instruction.
+     */
+    public void advance() {
+        if (code[codeIndex] == Program.DEVICE_BLOCK) {
+            codeIndex += 3;
+        } else if (isBlock()) {
+            codeIndex += 2;
+        } else if (++runOffset == code[codeIndex]) {
+            codeIndex++;
+            runOffset = 0;
+        }
+        position++;
+    }
+}
@@ -0,0 +1,59 @@
+package program;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Finds the program files a job pattern stands for.
+ */
+public class ProgramFiles {
+    private ProgramFiles() {
+    }
+
+    /**
+     * @param pattern A directory, a glob, or the name of a single job
+     * @return The names of the jobs the pattern stands for, sorted
+     */
+    public static List<String> resolve(String pattern) throws IOException {
+        Path path = Paths.get(pattern);
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.list(path)) {
+                return files.filter(Files::isRegularFile).map(Path::toString).sorted().toList();
+            }
+        }
+        if (!containsGlob(pattern)) {
+            return List.of(pattern);
+        }
+        // Walk from the deepest directory that comes before any wildcard, as deep as the wildcards can reach
+        Path base = path.getRoot();
+        int depth = 0;
+        for (Path segment : path) {
+            if (depth == 0 && !containsGlob(segment.toString())) {
+                base = base == null ? segment : base.resolve(segment);
+            } else if (segment.toString().contains("**")) {
+                depth = Integer.MAX_VALUE;
+            } else if (depth != Integer.MAX_VALUE) {
+                depth++;
+            }
+        }
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + path);
+        try (Stream<Path> files = Files.walk(base == null ? Paths.get("") : base, depth)) {
+            return files.filter(matcher::matches).filter(Files::isRegularFile).map(Path::toString).sorted().toList();
+        }
+    }
+
+    private static boolean containsGlob(String pattern) {
+        for (char c : "*?[{".toCharArray()) {
+            if (pattern.indexOf(c) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -2,4 +2,11 @@ package program;
 
 public interface ProgramLoader {
     Program loadProgram(String fileName);
+
+    /**
+     * @return Whether programs may be loaded on several threads at once without changing what they contain
+     */
+    default boolean supportsParallelLoading() {
+        return true;
+    }
 }
@@ -0,0 +1,34 @@
+package program;
+
+import java.text.ParseException;
+
+/**
+ * A parse exception that knows where in the program file the error is.
+ * The error offset is the byte offset from the start of the file.
+ */
+public class ProgramParseException extends ParseException {
+    private static final long serialVersionUID = 1L;
+
+    private final int line;
+    private final int column;
+
+    /**
+     * @param message What went wrong
+     * @param line The line of the error, starting at 1
+     * @param column The column of the error, starting at 1
+     * @param offset The byte offset of the error from the start of the file
+     */
+    public ProgramParseException(String message, int line, int column, int offset) {
+        super(String.format("line %d, column %d: %s", line, column, message), offset);
+        this.line = line;
+        this.column = column;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+}
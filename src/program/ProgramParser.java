@@ -0,0 +1,229 @@
+package program;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses program code straight from a channel, one chunk at a time.
+ * Lines are tokenized in place in the chunk buffer, without creating a String per line,
+ * and instructions go straight into a {@link Program.Builder}, so memory stays bounded by the chunk size
+ * and the compact program itself.
+ * The expected format is a header line with the program name as its second word, a "begin" line,
+ * one "execute", "block N" or "block device N" instruction per line, and an "end" line. Blank lines are ignored.
+ */
+class ProgramParser {
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final byte[] BEGIN = "begin".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END = "end".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EXECUTE = "execute".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BLOCK = "block".getBytes(StandardCharsets.US_ASCII);
+
+    private enum Section {
+        HEADER, BEGIN, BODY, AFTER_END
+    }
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+    private final byte[] bytes = buffer.array();
+    private final Program.Builder builder = new Program.Builder();
+    private Section section = Section.HEADER;
+    private String filename;
+    private int nonBlankLines = 0;
+    private int line = 0;
+    private int lineOffset = 0;
+    private int lineStart;
+    private int lineEnd;
+    private int tokenStart;
+    private int tokenEnd;
+
+    ProgramParser(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * @return The program parsed from the channel
+     * @throws IOException If reading from the channel fails
+     * @throws ProgramParseException If the code is not a valid program, with the line and column of the error
+     */
+    Program parse() throws IOException, ProgramParseException {
+        boolean endOfInput = false;
+        while (!endOfInput) {
+            endOfInput = channel.read(buffer) < 0;
+            buffer.flip();
+            int start = 0;
+            int limit = buffer.limit();
+            for (int i = 0; i < limit; i++) {
+                if (bytes[i] == '\n') {
+                    parseLine(start, i);
+                    lineOffset += i + 1 - start;
+                    start = i + 1;
+                }
+            }
+            if (endOfInput && start < limit) {
+                parseLine(start, limit);
+                lineOffset += limit - start;
+                start = limit;
+            }
+            buffer.position(start);
+            buffer.compact();
+            if (!endOfInput && buffer.position() == buffer.capacity()) {
+                line++;
+                throw error("Line is longer than " + CHUNK_SIZE + " bytes", 0);
+            }
+        }
+        if (nonBlankLines < 3) {
+            throw endOfFileError("Too few lines in program");
+        }
+        if (section != Section.AFTER_END) {
+            throw endOfFileError("Missing program end. Program is possibly truncated.");
+        }
+        return builder.build(filename);
+    }
+
+    private void parseLine(int start, int end) throws ProgramParseException {
+        line++;
+        lineStart = start;
+        lineEnd = end;
+        tokenEnd = start;
+        if (!nextToken()) {
+            return;
+        }
+        nonBlankLines++;
+        switch (section) {
+            case HEADER -> {
+                if (!nextToken()) {
+                    throw error("Failed to parse program header: missing program name", tokenEnd - lineStart);
+                }
+                filename = new String(bytes, tokenStart, tokenEnd - tokenStart, StandardCharsets.UTF_8);
+                section = Section.BEGIN;
+            }
+            case BEGIN -> {
+                if (!tokenIs(BEGIN)) {
+                    throw error("Missing program begin", tokenStart - lineStart);
+                }
+                expectLineEnd();
+                section = Section.BODY;
+            }
+            case BODY -> parseInstruction();
+            case AFTER_END -> throw error("Unexpected code after program end", tokenStart - lineStart);
+        }
+    }
+
+    private void parseInstruction() throws ProgramParseException {
+        if (tokenIs(EXECUTE)) {
+            expectLineEnd();
+            builder.addExecute();
+        } else if (tokenIs(BLOCK)) {
+            if (!nextToken()) {
+                throw error("Failed to parse block duration: missing duration", tokenEnd - lineStart);
+            }
+            String device = null;
+            if (!isNumberStart(bytes[tokenStart])) {
+                device = new String(bytes, tokenStart, tokenEnd - tokenStart, StandardCharsets.UTF_8);
+                if (!nextToken()) {
+                    throw error("Failed to parse block duration: missing duration", tokenEnd - lineStart);
+                }
+            }
+            int duration = parseInt();
+            expectLineEnd();
+            builder.addBlock(device, duration);
+        } else if (tokenIs(END)) {
+            expectLineEnd();
+            section = Section.AFTER_END;
+        } else {
+            throw error("Weird instruction type found: '"
+                    + new String(bytes, tokenStart, tokenEnd - tokenStart, StandardCharsets.UTF_8) + "'", tokenStart - lineStart);
+        }
+    }
+
+    /**
+     * @return true if a token was found.
+     * Moves to the next whitespace separated token of the current line.
+     */
+    private boolean nextToken() {
+        int i = tokenEnd;
+        while (i < lineEnd && isWhitespace(bytes[i])) {
+            i++;
+        }
+        if (i == lineEnd) {
+            return false;
+        }
+        tokenStart = i;
+        while (i < lineEnd && !isWhitespace(bytes[i])) {
+            i++;
+        }
+        tokenEnd = i;
+        return true;
+    }
+
+    /**
+     * @throws ProgramParseException If the current line has another token, at the column of that token
+     */
+    private void expectLineEnd() throws ProgramParseException {
+        if (nextToken()) {
+            throw error("Unexpected text after instruction: '"
+                    + new String(bytes, tokenStart, tokenEnd - tokenStart, StandardCharsets.UTF_8) + "'", tokenStart - lineStart);
+        }
+    }
+
+    private boolean tokenIs(byte[] keyword) {
+        if (tokenEnd - tokenStart != keyword.length) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length; i++) {
+            if (bytes[tokenStart + i] != keyword[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int parseInt() throws ProgramParseException {
+        int i = tokenStart;
+        boolean negative = bytes[i] == '-';
+        if (negative || bytes[i] == '+') {
+            i++;
+        }
+        if (i == tokenEnd) {
+            throw error("Failed to parse block duration: not a number", tokenStart - lineStart);
+        }
+        long value = 0;
+        for (; i < tokenEnd; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw error("Failed to parse block duration: not a number", i - lineStart);
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw error("Failed to parse block duration: out of range", tokenStart - lineStart);
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw error("Failed to parse block duration: out of range", tokenStart - lineStart);
+        }
+        return (int) value;
+    }
+
+    private static boolean isNumberStart(byte b) {
+        return (b >= '0' && b <= '9') || b == '-' || b == '+';
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\f';
+    }
+
+    /**
+     * @param message What went wrong
+     * @param column The column of the error in the current line, starting at 0
+     */
+    private ProgramParseException error(String message, int column) {
+        return new ProgramParseException(message, Math.max(line, 1), column + 1, lineOffset + column);
+    }
+
+    private ProgramParseException endOfFileError(String message) {
+        return new ProgramParseException(message, line + 1, 1, lineOffset);
+    }
+}
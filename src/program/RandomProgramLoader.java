@@ -1,73 +1,120 @@
 package program;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * An automatic program generator that implements the program loader interface to be used for testing purposes.
+ * Every program is generated from its own generator, split off a master generator in the order the programs are asked for,
+ * so two loaders with the same master seed generate the same sequence of programs.
  */
 public class RandomProgramLoader implements ProgramLoader {
     private static final int MAX_BLOCK_TIME = 20;
+    private final long seed;
+    private final SplittableRandom master;
+
+    public RandomProgramLoader() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * @param seed The master seed of the run
+     */
+    public RandomProgramLoader(long seed) {
+        this.seed = seed;
+        master = new SplittableRandom(seed);
+    }
+
+    /**
+     * @return The master seed, which reproduces this loader's programs when given to a new loader
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return False, since the programs depend on the order they are asked for in
+     */
+    @Override
+    public boolean supportsParallelLoading() {
+        return false;
+    }
+
     @Override
     public Program loadProgram(String fileName) {
+        SplittableRandom rng;
+        synchronized (master) {
+            rng = master.split();
+        }
         if (fileName.startsWith("IO")) {
             int num = Integer.parseInt(fileName.substring(2));
-            return randomIOBoundProgram(num);
+            return randomIOBoundProgram(num, rng);
         } else if (fileName.startsWith("CPU")) {
             int num = Integer.parseInt(fileName.substring(3));
-            return randomCPUBoundProgram(num);
+            return randomCPUBoundProgram(num, rng);
         }
         int num = Integer.parseInt(fileName);
-        return randomProgram(num);
+        return randomProgram(num, rng);
     }
 
-    private Program randomIOBoundProgram(int size) {
-        Random rng = new Random();
-        List<Instruction> instructions = new ArrayList<>();
+    private Program randomIOBoundProgram(int size, SplittableRandom rng) {
+        // Block durations, with 0 standing for an execute instruction
+        int[] instructions = new int[size];
         int numBlock = Math.abs(rng.nextInt() % size);
         if (numBlock < size - numBlock) {
             numBlock = size - numBlock;
         }
         for (int i=0;i<numBlock;i++) {
-            int duration = Math.abs(rng.nextInt() % MAX_BLOCK_TIME)+1;
-            instructions.add(new BlockInstruction(duration));
+            instructions[i] = Math.abs(rng.nextInt() % MAX_BLOCK_TIME)+1;
         }
-        for (int i=numBlock;i<size;i++) {
-            instructions.add(new ExecuteInstruction());
-        }
-        Collections.shuffle(instructions);
-        return new Program(instructions, "IO");
+        shuffle(instructions, rng);
+        return toProgram(instructions, "IO");
     }
-    private Program randomCPUBoundProgram(int size) {
-        Random rng = new Random();
-        List<Instruction> instructions = new ArrayList<>();
+    private Program randomCPUBoundProgram(int size, SplittableRandom rng) {
+        int[] instructions = new int[size];
         int numExecute = Math.abs(rng.nextInt() % size);
         if (numExecute < size - numExecute) {
             numExecute = size - numExecute;
         }
-        for (int i=0;i<numExecute;i++) {
-            instructions.add(new ExecuteInstruction());
-        }
         for (int i=numExecute;i<size;i++) {
-            int duration = Math.abs(rng.nextInt() % MAX_BLOCK_TIME)+1;
-            instructions.add(new BlockInstruction(duration));
+            instructions[i] = Math.abs(rng.nextInt() % MAX_BLOCK_TIME)+1;
         }
-        Collections.shuffle(instructions);
-        return new Program(instructions, "CPU");
+        shuffle(instructions, rng);
+        return toProgram(instructions, "CPU");
     }
-    private Program randomProgram(int size) {
-        Random rng = new Random();
-        List<Instruction> instructions = new ArrayList<>();
+    private Program randomProgram(int size, SplittableRandom rng) {
+        Program.Builder builder = new Program.Builder();
         for (int i=0;i<size;i++) {
             if (rng.nextBoolean()) {
-                instructions.add(new ExecuteInstruction());
+                builder.addExecute();
             } else {
                 int duration = Math.abs(rng.nextInt() % MAX_BLOCK_TIME)+1;
-                instructions.add(new BlockInstruction(duration));
+                builder.addBlock(duration);
+            }
+        }
+        return builder.build("Random");
+    }
+
+    private static void shuffle(int[] instructions, SplittableRandom rng) {
+        for (int i = instructions.length - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            int swap = instructions[i];
+            instructions[i] = instructions[j];
+            instructions[j] = swap;
+        }
+    }
+
+    /**
+     * @param instructions Block durations, with 0 standing for an execute instruction
+     */
+    private static Program toProgram(int[] instructions, String filename) {
+        Program.Builder builder = new Program.Builder();
+        for (int duration : instructions) {
+            if (duration == 0) {
+                builder.addExecute();
+            } else {
+                builder.addBlock(duration);
             }
         }
-        return new Program(instructions, "Random");
+        return builder.build(filename);
     }
 }
@@ -0,0 +1,110 @@
+package simulation;
+
+import program.Program;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A handle on a batch of jobs submitted together.
+ * The programs are loaded in any order, but are handed over for admission in the order they were submitted in,
+ * each as soon as it and all the jobs before it are loaded.
+ */
+public class BatchSubmission {
+    private final List<String> fileNames;
+    private final Consumer<Program> admission;
+    private final Program[] programs;
+    private final boolean[] loaded;
+    private final boolean[] submitted;
+    private final CompletableFuture<BatchSubmission> completion = new CompletableFuture<>();
+    private int nextToAdmit;
+    private int submittedCount;
+
+    /**
+     * @param fileNames The names of the jobs, in submission order
+     * @param admission Receives the loaded programs, in submission order
+     */
+    BatchSubmission(List<String> fileNames, Consumer<Program> admission) {
+        this.fileNames = List.copyOf(fileNames);
+        this.admission = admission;
+        programs = new Program[fileNames.size()];
+        loaded = new boolean[fileNames.size()];
+        submitted = new boolean[fileNames.size()];
+        nextToAdmit = 0;
+        submittedCount = 0;
+        if (fileNames.isEmpty()) {
+            completion.complete(this);
+        }
+    }
+
+    /**
+     * @param index The position of the job in the batch.
+     * @param program The loaded program, or null if it could not be loaded.
+     * Hands over every job that is now ready to be admitted in order.
+     */
+    synchronized void loaded(int index, Program program) {
+        programs[index] = program;
+        loaded[index] = true;
+        while (nextToAdmit < programs.length && loaded[nextToAdmit]) {
+            Program next = programs[nextToAdmit];
+            programs[nextToAdmit] = null;
+            if (next != null) {
+                admission.accept(next);
+                submitted[nextToAdmit] = true;
+                submittedCount++;
+            }
+            nextToAdmit++;
+        }
+        if (nextToAdmit == programs.length) {
+            completion.complete(this);
+        }
+    }
+
+    /**
+     * @return A future completed with this batch once every job was either submitted or failed to load
+     */
+    public CompletableFuture<BatchSubmission> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * @return The names of the jobs, in submission order
+     */
+    public List<String> getFileNames() {
+        return fileNames;
+    }
+
+    public int size() {
+        return fileNames.size();
+    }
+
+    /**
+     * @param index The position of the job in the batch
+     * @return Whether the job was loaded and queued for admission. False while it is still loading.
+     */
+    public synchronized boolean isSubmitted(int index) {
+        return submitted[index];
+    }
+
+    /**
+     * @return The number of jobs queued for admission so far
+     */
+    public synchronized int getSubmittedCount() {
+        return submittedCount;
+    }
+
+    /**
+     * @return The names of the jobs that failed to load, once the batch is complete
+     */
+    public synchronized List<String> getFailedFileNames() {
+        List<String> failed = new ArrayList<>();
+        for (int i = 0; i < nextToAdmit; i++) {
+            if (!submitted[i]) {
+                failed.add(fileNames.get(i));
+            }
+        }
+        return failed;
+    }
+}
@@ -0,0 +1,268 @@
+package simulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Holds the blocked processes, by their slot in the process table, keyed by the tick at which they wake up.
+ * It is a hashed timing wheel: every slot holds the processes waking up at the ticks that map to it,
+ * so advancing the clock only touches the processes that actually unblock.
+ * Processes that wake up further away than one turn of the wheel wait in an overflow heap,
+ * and are moved into the wheel once they get close enough.
+ */
+class BlockedQueue {
+    private final int mask;
+    private final Slot[] slots;
+    private final PriorityQueue<OverflowEntry> overflow;
+    private long currentTick;
+    private long nextSequence;
+    private int size;
+    /**
+     * The earliest wake tick, or -1 when it must be looked up again because processes woke up since it was found
+     */
+    private long nextWakeTick;
+
+    /**
+     * @param wheelSize The number of slots in the wheel, rounded up to a power of two.
+     *                  Block times up to this many ticks never touch the overflow heap.
+     */
+    BlockedQueue(int wheelSize) {
+        int slotCount = Integer.highestOneBit(Math.max(wheelSize - 1, 1)) << 1;
+        mask = slotCount - 1;
+        slots = new Slot[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new Slot();
+        }
+        overflow = new PriorityQueue<>(Comparator.comparingLong((OverflowEntry entry) -> entry.wakeTick)
+                .thenComparingLong(entry -> entry.sequence));
+        currentTick = 0;
+        nextSequence = 0;
+        size = 0;
+        nextWakeTick = -1;
+    }
+
+    /**
+     * @param process The slot of the process that was blocked.
+     * @param wakeTick The tick at which the process becomes ready again. It must be later than the current tick.
+     */
+    void add(int process, long wakeTick) {
+        if (wakeTick - currentTick > mask) {
+            overflow.add(new OverflowEntry(process, wakeTick, nextSequence++));
+        } else {
+            slots[(int) (wakeTick & mask)].add(process, wakeTick);
+        }
+        if (size == 0 || (nextWakeTick != -1 && wakeTick < nextWakeTick)) {
+            nextWakeTick = wakeTick;
+        }
+        size++;
+    }
+
+    /**
+     * @param tick The tick the clock moved to.
+     * @param unblocked The list that receives the slots of the processes that woke up, in the order they were blocked.
+     * Moves the wheel forward, visiting each slot at most once.
+     */
+    void advanceTo(long tick, IntList unblocked) {
+        long from = Math.max(currentTick + 1, tick - mask);
+        currentTick = tick;
+        if (size == 0 || (nextWakeTick != -1 && nextWakeTick > tick && overflow.isEmpty())) {
+            return;
+        }
+        nextWakeTick = -1;
+        for (long t = from; t <= tick; t++) {
+            size -= slots[(int) (t & mask)].removeDue(tick, unblocked);
+        }
+        while (!overflow.isEmpty() && overflow.peek().wakeTick - tick <= mask) {
+            OverflowEntry entry = overflow.remove();
+            if (entry.wakeTick <= tick) {
+                unblocked.add(entry.process);
+                size--;
+            } else {
+                slots[(int) (entry.wakeTick & mask)].add(entry.process, entry.wakeTick);
+            }
+        }
+    }
+
+    /**
+     * @return The earliest tick at which some process wakes up, or -1 if nothing is blocked.
+     * It is only looked up in the wheel again after some process woke up.
+     */
+    long nextWakeTick() {
+        if (size == 0) {
+            return -1;
+        }
+        if (nextWakeTick == -1) {
+            nextWakeTick = findNextWakeTick();
+        }
+        return nextWakeTick;
+    }
+
+    private long findNextWakeTick() {
+        for (long t = currentTick + 1; t <= currentTick + mask; t++) {
+            long wakeTick = slots[(int) (t & mask)].earliestWakeTick();
+            if (wakeTick == t) {
+                return wakeTick;
+            }
+        }
+        return overflow.peek().wakeTick;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        for (Slot slot : slots) {
+            slot.clear();
+        }
+        overflow.clear();
+        size = 0;
+        nextWakeTick = -1;
+    }
+
+    /**
+     * @param out Where to write the queue.
+     * Writes every slot of the wheel as it is, along with the overflow heap, so that processes waking up
+     * at the same tick still wake up in the same order after {@link #readFrom}.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(slots.length);
+        out.writeLong(currentTick);
+        out.writeLong(nextSequence);
+        out.writeInt(size);
+        out.writeLong(nextWakeTick);
+        for (Slot slot : slots) {
+            out.writeInt(slot.size);
+            for (int i = 0; i < slot.size; i++) {
+                out.writeInt(slot.processes[i]);
+                out.writeLong(slot.wakeTicks[i]);
+            }
+        }
+        out.writeInt(overflow.size());
+        for (OverflowEntry entry : overflow) {
+            out.writeInt(entry.process);
+            out.writeLong(entry.wakeTick);
+            out.writeLong(entry.sequence);
+        }
+    }
+
+    /**
+     * @param in Where to read the queue from.
+     * Replaces the content of this queue with the one written by {@link #writeTo}, from a wheel of the same size.
+     */
+    void readFrom(DataInput in) throws IOException {
+        int slotCount = in.readInt();
+        if (slotCount != slots.length) {
+            throw new IOException(String.format("The blocked queue has %d slots, not %d", slotCount, slots.length));
+        }
+        clear();
+        currentTick = in.readLong();
+        nextSequence = in.readLong();
+        int total = in.readInt();
+        long wakeTick = in.readLong();
+        for (Slot slot : slots) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                slot.add(in.readInt(), in.readLong());
+            }
+        }
+        int overflowCount = in.readInt();
+        for (int i = 0; i < overflowCount; i++) {
+            overflow.add(new OverflowEntry(in.readInt(), in.readLong(), in.readLong()));
+        }
+        size = total;
+        nextWakeTick = wakeTick;
+    }
+
+    /**
+     * @return The slots of the blocked processes, in the order they will be unblocked
+     */
+    int[] toArray() {
+        List<OverflowEntry> entries = new ArrayList<>(overflow);
+        for (Slot slot : slots) {
+            for (int i = 0; i < slot.size; i++) {
+                entries.add(new OverflowEntry(slot.processes[i], slot.wakeTicks[i], i));
+            }
+        }
+        entries.sort(Comparator.comparingLong((OverflowEntry entry) -> entry.wakeTick)
+                .thenComparingLong(entry -> entry.sequence));
+        int[] processes = new int[entries.size()];
+        for (int i = 0; i < processes.length; i++) {
+            processes[i] = entries.get(i).process;
+        }
+        return processes;
+    }
+
+    /**
+     * A slot of the wheel, stored as two parallel arrays so that adding and removing does not allocate.
+     */
+    private static class Slot {
+        private int[] processes = new int[4];
+        private long[] wakeTicks = new long[4];
+        private int size = 0;
+
+        void add(int process, long wakeTick) {
+            if (size == processes.length) {
+                processes = Arrays.copyOf(processes, size * 2);
+                wakeTicks = Arrays.copyOf(wakeTicks, size * 2);
+            }
+            processes[size] = process;
+            wakeTicks[size] = wakeTick;
+            size++;
+        }
+
+        /**
+         * @return The number of processes that were removed.
+         * Removes the processes due by the given tick, keeping the order of the others.
+         */
+        int removeDue(long tick, IntList unblocked) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (wakeTicks[i] <= tick) {
+                    unblocked.add(processes[i]);
+                } else {
+                    processes[kept] = processes[i];
+                    wakeTicks[kept] = wakeTicks[i];
+                    kept++;
+                }
+            }
+            int removed = size - kept;
+            size = kept;
+            return removed;
+        }
+
+        long earliestWakeTick() {
+            long earliest = Long.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                earliest = Math.min(earliest, wakeTicks[i]);
+            }
+            return earliest;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    private static class OverflowEntry {
+        private final int process;
+        private final long wakeTick;
+        private final long sequence;
+
+        OverflowEntry(int process, long wakeTick, long sequence) {
+            this.process = process;
+            this.wakeTick = wakeTick;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package simulation;
+
+import program.Program;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Saves the whole state of a simulation to a file, and restores it, so that a long run can be paused across restarts
+ * of the JVM, or forked into several runs that share their past.
+ * A checkpoint holds the submission queue of the long term scheduler, and everything the short term scheduler keeps:
+ * every process with its position in its program, the ready set of the policy in order, the pending events,
+ * the blocked queue and the devices, the metrics and the clock. A restored simulation goes on exactly as the saved one does.
+ * The file is a header (the magic number and the format version), the programs, each written once however many
+ * processes run it, and then the state of the short term scheduler and of the long term scheduler,
+ * with every process and submission referring to its program by number.
+ * Checkpoints are meant for runs in virtual time driven on the calling thread, with admissions inline,
+ * taken between two steps of {@link ShortTermScheduler#runUntil(long)}.
+ */
+public final class Checkpoint {
+    static final long MAGIC = 0x45534343484B5054L; // "ESCCHKPT"
+    static final int VERSION = 3;
+
+    private Checkpoint() {
+    }
+
+    /**
+     * @param file The checkpoint file, which is replaced once the new one is complete.
+     * @param longTermScheduler The long term scheduler of the simulation.
+     * @param shortTermScheduler The short term scheduler the long term scheduler admits into.
+     * @return The size of the checkpoint, in bytes.
+     * The state is written to memory while the schedulers are held, and then to the file in one gathering write,
+     * so the schedulers never wait for the disk. Programs are only known once the state is written,
+     * so they go to a buffer of their own, which comes first in the file.
+     */
+    public static long save(Path file, LongTermScheduler longTermScheduler, ShortTermScheduler shortTermScheduler)
+            throws IOException {
+        ProgramNumbers programs = new ProgramNumbers();
+        ToIntFunction<Program> indexOf = programs::numberOf;
+        CheckpointOutput state = new CheckpointOutput();
+        shortTermScheduler.writeCheckpoint(state, indexOf);
+        longTermScheduler.writeCheckpoint(state, indexOf);
+
+        CheckpointOutput header = new CheckpointOutput();
+        header.writeLong(MAGIC);
+        header.writeInt(VERSION);
+        header.writeInt(programs.size());
+        for (int i = 0; i < programs.size(); i++) {
+            programs.get(i).writeTo(header);
+        }
+
+        List<ByteBuffer> buffers = new ArrayList<>(List.of(header.toBuffers()));
+        buffers.addAll(List.of(state.toBuffers()));
+        ByteBuffer[] chunks = buffers.toArray(new ByteBuffer[0]);
+        ByteBuffer last = chunks[chunks.length - 1];
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        long size = 0;
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (last.hasRemaining()) {
+                size += channel.write(chunks);
+            }
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+        return size;
+    }
+
+    /**
+     * @param file A checkpoint written by {@link #save}.
+     * @param longTermScheduler A new long term scheduler, on top of the given short term scheduler.
+     * @param shortTermScheduler A new short term scheduler with the same policy, policy settings and devices
+     *                           as the one that was saved, whose thread is not started.
+     * Puts both schedulers where the saved ones were, and admits the jobs that fit.
+     */
+    public static void restore(Path file, LongTermScheduler longTermScheduler, ShortTermScheduler shortTermScheduler)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            CheckpointInput in = new CheckpointInput(channel);
+            if (in.readLong() != MAGIC) {
+                throw new IOException("Not a checkpoint file");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version);
+            }
+            int programCount = in.readInt();
+            if (programCount < 0) {
+                throw new IOException("Corrupt program count " + programCount);
+            }
+            Program[] programs = new Program[programCount];
+            for (int i = 0; i < programs.length; i++) {
+                programs[i] = Program.readFrom(in);
+            }
+            shortTermScheduler.readCheckpoint(in, index -> programs[index]);
+            longTermScheduler.readCheckpoint(in, index -> programs[index]);
+        }
+    }
+
+    /**
+     * Numbers programs in the order they are first seen, telling them apart by identity.
+     * It is an open addressing table of programs and their numbers, so numbering a million programs does not box
+     * a million numbers.
+     */
+    private static class ProgramNumbers {
+        private Program[] keys = new Program[1024];
+        private int[] numbers = new int[1024];
+        private Program[] programs = new Program[512];
+        private int size = 0;
+
+        /**
+         * @return The number of the program, which is the next one if it was not seen yet
+         */
+        int numberOf(Program program) {
+            int mask = keys.length - 1;
+            int index = System.identityHashCode(program) & mask;
+            while (keys[index] != null) {
+                if (keys[index] == program) {
+                    return numbers[index];
+                }
+                index = (index + 1) & mask;
+            }
+            if (size == programs.length) {
+                programs = Arrays.copyOf(programs, size * 2);
+                rehash(keys.length * 2);
+                return numberOf(program);
+            }
+            keys[index] = program;
+            numbers[index] = size;
+            programs[size] = program;
+            return size++;
+        }
+
+        private void rehash(int capacity) {
+            keys = new Program[capacity];
+            numbers = new int[capacity];
+            int mask = capacity - 1;
+            for (int number = 0; number < size; number++) {
+                int index = System.identityHashCode(programs[number]) & mask;
+                while (keys[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = programs[number];
+                numbers[index] = number;
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        Program get(int number) {
+            return programs[number];
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package simulation;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads a checkpoint from a channel through one direct buffer, which is refilled whenever a value does not fit
+ * in what is left of it. Reading a value is a bounds check and a get, with no locking.
+ */
+class CheckpointInput implements DataInput {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    CheckpointInput(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+    }
+
+    /**
+     * @param bytes The number of bytes about to be read in one go, at most the size of the buffer.
+     * @return The buffer, with at least that many bytes left in it
+     */
+    private ByteBuffer need(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException();
+                }
+            }
+            buffer.flip();
+        }
+        return buffer;
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+        readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int count = Math.min(len, need(1).remaining());
+            buffer.get(b, off, count);
+            off += count;
+            len -= count;
+        }
+    }
+
+    @Override
+    public int skipBytes(int n) throws IOException {
+        int skipped = 0;
+        while (skipped < n) {
+            int count = Math.min(n - skipped, need(1).remaining());
+            buffer.position(buffer.position() + count);
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return need(1).get();
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return readByte() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        return need(Short.BYTES).getShort();
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return need(Character.BYTES).getChar();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        return need(Integer.BYTES).getInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        return need(Long.BYTES).getLong();
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return need(Float.BYTES).getFloat();
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return need(Double.BYTES).getDouble();
+    }
+
+    /**
+     * @return The bytes up to the next "\n", "\r" or "\r\n", or to the end of the channel, each one as a character,
+     * or null if the channel is at its end
+     */
+    @Override
+    public String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        while (refill()) {
+            int b = buffer.get() & 0xFF;
+            if (b == '\n') {
+                return line.toString();
+            }
+            if (b == '\r') {
+                if (refill() && buffer.get(buffer.position()) == '\n') {
+                    buffer.get();
+                }
+                return line.toString();
+            }
+            line.append((char) b);
+        }
+        return line.isEmpty() ? null : line.toString();
+    }
+
+    /**
+     * @return Whether the buffer has a byte left, once refilled if it had none, which is false at the end of the channel
+     */
+    private boolean refill() throws IOException {
+        if (buffer.hasRemaining()) {
+            return true;
+        }
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+        return read > 0;
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+}
@@ -0,0 +1,154 @@
+package simulation;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects what a checkpoint writes in direct buffers of a fixed size, which are then written in one gathering write.
+ * Nothing is copied as it grows, the garbage collector never scans or moves what it holds, and writing a value
+ * is a bounds check and a put, with no locking. Strings are written as {@link java.io.DataOutputStream} writes them.
+ */
+class CheckpointOutput implements DataOutput {
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private final List<ByteBuffer> chunks;
+    private ByteBuffer current;
+
+    CheckpointOutput() {
+        chunks = new ArrayList<>();
+        current = null;
+    }
+
+    /**
+     * @param bytes The number of bytes about to be written in one go, at most the size of a chunk.
+     * @return The chunk to write them to, which is a new one if the current one has no room for them.
+     * The end of the previous chunk is left unused, and is not written out.
+     */
+    private ByteBuffer room(int bytes) {
+        if (current == null || current.remaining() < bytes) {
+            current = ByteBuffer.allocateDirect(CHUNK_SIZE);
+            chunks.add(current);
+        }
+        return current;
+    }
+
+    /**
+     * @return The chunks, ready to be written out. Nothing may be written after this.
+     */
+    ByteBuffer[] toBuffers() {
+        ByteBuffer[] buffers = new ByteBuffer[chunks.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = chunks.get(i).flip();
+        }
+        return buffers;
+    }
+
+    @Override
+    public void write(int b) {
+        room(1).put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b) {
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        while (len > 0) {
+            ByteBuffer chunk = room(1);
+            int count = Math.min(len, chunk.remaining());
+            chunk.put(b, off, count);
+            off += count;
+            len -= count;
+        }
+    }
+
+    @Override
+    public void writeBoolean(boolean v) {
+        write(v ? 1 : 0);
+    }
+
+    @Override
+    public void writeByte(int v) {
+        write(v);
+    }
+
+    @Override
+    public void writeShort(int v) {
+        room(Short.BYTES).putShort((short) v);
+    }
+
+    @Override
+    public void writeChar(int v) {
+        room(Character.BYTES).putChar((char) v);
+    }
+
+    @Override
+    public void writeInt(int v) {
+        room(Integer.BYTES).putInt(v);
+    }
+
+    @Override
+    public void writeLong(long v) {
+        room(Long.BYTES).putLong(v);
+    }
+
+    @Override
+    public void writeFloat(float v) {
+        room(Float.BYTES).putFloat(v);
+    }
+
+    @Override
+    public void writeDouble(double v) {
+        room(Double.BYTES).putDouble(v);
+    }
+
+    @Override
+    public void writeBytes(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            write(s.charAt(i));
+        }
+    }
+
+    @Override
+    public void writeChars(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            writeChar(s.charAt(i));
+        }
+    }
+
+    /**
+     * Writes the length and then the string in modified UTF-8, like {@link java.io.DataOutputStream#writeUTF} does.
+     */
+    @Override
+    public void writeUTF(String s) throws IOException {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            length += c >= 1 && c <= 0x7F ? 1 : c <= 0x7FF ? 2 : 3;
+        }
+        if (length > 0xFFFF) {
+            throw new UTFDataFormatException("String too long: " + length + " bytes");
+        }
+        ByteBuffer chunk = room(Short.BYTES + length);
+        chunk.putShort((short) length);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 1 && c <= 0x7F) {
+                chunk.put((byte) c);
+            } else if (c <= 0x7FF) {
+                chunk.put((byte) (0xC0 | c >> 6));
+                chunk.put((byte) (0x80 | c & 0x3F));
+            } else {
+                chunk.put((byte) (0xE0 | c >> 12));
+                chunk.put((byte) (0x80 | c >> 6 & 0x3F));
+                chunk.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+}
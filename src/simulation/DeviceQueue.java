@@ -0,0 +1,202 @@
+package simulation;
+
+import metrics.LogHistogram;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * The service queue of an {@link IoDevice} in one short term scheduler, with the processes it serves and the ones waiting for it.
+ * A request in service is a process in the {@link BlockedQueue}, waking up when its service ends,
+ * so completions go through the same path as every other block. The waiting requests are a ring of parallel arrays,
+ * so queueing a request does not allocate.
+ */
+class DeviceQueue {
+    private final IoDevice device;
+    private int[] waitingSlots;
+    private int[] waitingDurations;
+    private long[] waitingSince;
+    private int head;
+    private int waitingCount;
+    private int inService;
+    private long requestCount;
+    private long busyTicks;
+    private int longestQueue;
+    private final LogHistogram queueWait;
+
+    DeviceQueue(IoDevice device) {
+        this.device = device;
+        waitingSlots = new int[16];
+        waitingDurations = new int[16];
+        waitingSince = new long[16];
+        head = 0;
+        waitingCount = 0;
+        inService = 0;
+        requestCount = 0;
+        busyTicks = 0;
+        longestQueue = 0;
+        queueWait = new LogHistogram();
+    }
+
+    IoDevice getDevice() {
+        return device;
+    }
+
+    /**
+     * @param slot The slot of the process that blocked on the device.
+     * @param duration The duration its block instruction asks for.
+     * @param tick The tick at which the request reaches the device.
+     * @param blockedQueue Where the process waits until its request is served.
+     * Serves the request right away if the device has room for it, and queues it otherwise.
+     */
+    void request(int slot, int duration, long tick, BlockedQueue blockedQueue) {
+        requestCount++;
+        if (inService < device.getConcurrency()) {
+            start(slot, duration, tick, tick, blockedQueue);
+            return;
+        }
+        if (waitingCount == waitingSlots.length) {
+            grow();
+        }
+        int index = (head + waitingCount) % waitingSlots.length;
+        waitingSlots[index] = slot;
+        waitingDurations[index] = duration;
+        waitingSince[index] = tick;
+        waitingCount++;
+        longestQueue = Math.max(longestQueue, waitingCount);
+    }
+
+    /**
+     * @param tick The tick at which a request of this device was served.
+     * @param blockedQueue Where the next waiting request, if any, waits for its service to end.
+     */
+    void completed(long tick, BlockedQueue blockedQueue) {
+        inService--;
+        if (waitingCount > 0) {
+            int slot = waitingSlots[head];
+            int duration = waitingDurations[head];
+            long since = waitingSince[head];
+            head = (head + 1) % waitingSlots.length;
+            waitingCount--;
+            start(slot, duration, since, tick, blockedQueue);
+        }
+    }
+
+    private void start(int slot, int duration, long requestTick, long tick, BlockedQueue blockedQueue) {
+        long serviceTime = device.serviceTime(duration);
+        inService++;
+        busyTicks += serviceTime;
+        queueWait.record(tick - requestTick);
+        blockedQueue.add(slot, tick + serviceTime);
+    }
+
+    /**
+     * @return The slots of the processes waiting for the device, in the order they will be served
+     */
+    int[] waitingSlots() {
+        int[] slots = new int[waitingCount];
+        for (int i = 0; i < waitingCount; i++) {
+            slots[i] = waitingSlots[(head + i) % waitingSlots.length];
+        }
+        return slots;
+    }
+
+    /**
+     * @return How long the requests served so far waited in the queue before their service started
+     */
+    LogHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    /**
+     * Drops every request, served or waiting. The counters are kept.
+     */
+    void clear() {
+        head = 0;
+        waitingCount = 0;
+        inService = 0;
+    }
+
+    /**
+     * @param out Where to write the requests in service and the waiting ones, in order, along with the counters.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(waitingCount);
+        for (int i = 0; i < waitingCount; i++) {
+            int index = (head + i) % waitingSlots.length;
+            out.writeInt(waitingSlots[index]);
+            out.writeInt(waitingDurations[index]);
+            out.writeLong(waitingSince[index]);
+        }
+        out.writeInt(inService);
+        out.writeLong(requestCount);
+        out.writeLong(busyTicks);
+        out.writeInt(longestQueue);
+        queueWait.writeTo(out);
+    }
+
+    /**
+     * @param in Where to read the queue from.
+     * Replaces the requests and the counters of this queue with the ones written by {@link #writeTo}.
+     */
+    void readFrom(DataInput in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Corrupt queue of device " + device.getName());
+        }
+        int capacity = Math.max(16, Integer.highestOneBit(Math.max(count, 1)) << 1);
+        waitingSlots = new int[capacity];
+        waitingDurations = new int[capacity];
+        waitingSince = new long[capacity];
+        for (int i = 0; i < count; i++) {
+            waitingSlots[i] = in.readInt();
+            waitingDurations[i] = in.readInt();
+            waitingSince[i] = in.readLong();
+        }
+        head = 0;
+        waitingCount = count;
+        inService = in.readInt();
+        requestCount = in.readLong();
+        busyTicks = in.readLong();
+        longestQueue = in.readInt();
+        queueWait.readFrom(in);
+    }
+
+    /**
+     * @param elapsedTicks The ticks the scheduler ran for.
+     * @return One line with the requests the device got, how busy it was and how long requests waited for it
+     */
+    String describe(long elapsedTicks) {
+        double utilization = elapsedTicks == 0 ? 0 : busyTicks / ((double) elapsedTicks * device.getConcurrency());
+        return String.format(Locale.ROOT, "%-10s %11d %9d %8.1f %10d %14.1f %10d %10d\n", device.getName(),
+                device.getConcurrency(), requestCount, Math.min(utilization, 1) * 100, waitingCount, queueWait.getMean(),
+                queueWait.getPercentile(99), longestQueue);
+    }
+
+    /**
+     * @return The header of the lines of {@link #describe(long)}
+     */
+    static String header() {
+        return String.format(Locale.ROOT, "%-10s %11s %9s %8s %10s %14s %10s %10s\n", "device", "concurrency", "requests",
+                "busy %", "waiting", "queue wait", "wait p99", "longest");
+    }
+
+    private void grow() {
+        int capacity = waitingSlots.length * 2;
+        int[] slots = new int[capacity];
+        int[] durations = new int[capacity];
+        long[] since = new long[capacity];
+        for (int i = 0; i < waitingCount; i++) {
+            int index = (head + i) % waitingSlots.length;
+            slots[i] = waitingSlots[index];
+            durations[i] = waitingDurations[index];
+            since[i] = waitingSince[index];
+        }
+        waitingSlots = slots;
+        waitingDurations = durations;
+        waitingSince = since;
+        head = 0;
+    }
+}
@@ -0,0 +1,35 @@
+package simulation;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of ints, so that lists of slot ids do not box every entry.
+ */
+class IntList {
+    private int[] values;
+    private int size;
+
+    IntList() {
+        values = new int[16];
+        size = 0;
+    }
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+}
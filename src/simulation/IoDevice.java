@@ -0,0 +1,101 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A named I/O device, such as a disk or a network link, that block instructions can wait for.
+ * A device serves a limited number of requests at a time, and the other requests wait in its queue, in order.
+ * Serving a request takes a fixed overhead plus the duration the block instruction asks for, scaled by the speed of the device.
+ * Blocks on a device the scheduler does not have, or on no device, take the duration they ask for, as if every such
+ * block had a device of its own.
+ */
+public class IoDevice {
+    /**
+     * The system property listing the devices of every scheduler, as {@link #parseAll} reads them
+     */
+    public static final String PROPERTY = "escalonador.devices";
+
+    private final String name;
+    private final int concurrency;
+    private final int overhead;
+    private final double scale;
+
+    /**
+     * @param name The name block instructions use for the device.
+     * @param concurrency The number of requests the device serves at the same time, at least 1.
+     * @param overhead The ticks every request takes on top of its duration, at least 0.
+     * @param scale What the duration of a request is multiplied by, at least 0.
+     */
+    public IoDevice(String name, int concurrency, int overhead, double scale) {
+        if (concurrency < 1 || overhead < 0 || !(scale >= 0)) {
+            throw new IllegalArgumentException(String.format("Invalid device %s: concurrency %d, overhead %d, scale %s",
+                    name, concurrency, overhead, scale));
+        }
+        this.name = name;
+        this.concurrency = concurrency;
+        this.overhead = overhead;
+        this.scale = scale;
+    }
+
+    /**
+     * @param description "name:concurrency", "name:concurrency:overhead" or "name:concurrency:overhead:scale",
+     *                    with no overhead and a scale of 1 when they are left out, like "disk:1:2:1.5".
+     * @return The device the description stands for
+     */
+    public static IoDevice parse(String description) {
+        String[] parts = description.trim().split(":");
+        if (parts.length < 2 || parts.length > 4 || parts[0].isEmpty()) {
+            throw new IllegalArgumentException("Expected name:concurrency[:overhead[:scale]], got '" + description + "'");
+        }
+        try {
+            return new IoDevice(parts[0], Integer.parseInt(parts[1]), parts.length > 2 ? Integer.parseInt(parts[2]) : 0,
+                    parts.length > 3 ? Double.parseDouble(parts[3]) : 1);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid device '" + description + "'");
+        }
+    }
+
+    /**
+     * @param descriptions A comma separated list of devices as {@link #parse} reads them, or null or empty for none.
+     * @return The devices
+     */
+    public static List<IoDevice> parseAll(String descriptions) {
+        List<IoDevice> devices = new ArrayList<>();
+        if (descriptions == null || descriptions.isBlank()) {
+            return devices;
+        }
+        for (String description : descriptions.split(",")) {
+            devices.add(parse(description));
+        }
+        return devices;
+    }
+
+    /**
+     * @return The devices listed in the {@link #PROPERTY} system property, or none if it is not set
+     */
+    public static List<IoDevice> configured() {
+        return parseAll(System.getProperty(PROPERTY));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * @param duration The duration the block instruction asks for.
+     * @return The ticks the device takes to serve the request, at least 1
+     */
+    long serviceTime(int duration) {
+        return Math.max(1, overhead + Math.round(duration * scale));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s:%d:%d:%s", name, concurrency, overhead, scale);
+    }
+}
@@ -1,35 +1,72 @@
 package simulation;
 
 import interfaces.InterSchedulerInterface;
+import interfaces.LoadObserverInterface;
 import interfaces.NotificationInterface;
 import interfaces.SubmissionInterface;
+import interfaces.SubmissionRecorderInterface;
 import program.Program;
+import program.ProgramFiles;
 import program.ProgramLoader;
 
-import java.util.LinkedList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
 
 /**
- * Long term scheduler implementation
+ * Long term scheduler implementation.
+ * The admission thread parks while there is nothing to admit or no room in the short term scheduler,
+ * and is woken up by new submissions and by the short term scheduler when its load changes.
+ * Batches of jobs are loaded on a bounded pool of loader threads, so submitting them never blocks the caller.
+ * For deterministic runs, admissions can instead happen inline, on the thread that submits or reports the load change.
  */
-public class LongTermScheduler implements Runnable, SubmissionInterface {
+public class LongTermScheduler implements Runnable, SubmissionInterface, LoadObserverInterface {
 
     private NotificationInterface notificationObserver;
     private final int maxLoad;
-    private boolean running;
+    private volatile boolean running;
+    private volatile Thread admissionThread;
+    private volatile boolean admitInline;
+    private volatile SubmissionRecorderInterface recorder;
     private final InterSchedulerInterface interSchedulerInterface;
-    private final Queue<Program> submissionQueue;
+    private final Queue<Submission> submissionQueue;
     private final ProgramLoader loader;
+    private final int loaderThreadCount;
+    private ExecutorService loaderPool;
     private long nextPid;
+    private long submittedCount;
+    private long admittedCount;
+    private long totalAdmissionLatency;
+    private long maxAdmissionLatency;
 
     public LongTermScheduler(int maxLoad, InterSchedulerInterface interSchedulerInterface, ProgramLoader loader) {
         this.maxLoad = maxLoad;
         this.interSchedulerInterface = interSchedulerInterface;
         this.loader = loader;
-        submissionQueue = new LinkedList<>();
+        loaderThreadCount = loader.supportsParallelLoading() ? Runtime.getRuntime().availableProcessors() : 1;
+        loaderPool = null;
+        submissionQueue = new ConcurrentLinkedQueue<>();
         this.running = true;
         this.notificationObserver = null;
+        admitInline = false;
+        recorder = null;
         nextPid = 1;
+        submittedCount = 0;
+        admittedCount = 0;
+        totalAdmissionLatency = 0;
+        maxAdmissionLatency = 0;
+        interSchedulerInterface.setLoadObserver(this);
     }
 
     /**
@@ -39,45 +76,280 @@ public class LongTermScheduler implements Runnable, SubmissionInterface {
         this.notificationObserver = notificationObserver;
     }
 
+    /**
+     * @param recorder The recorder that receives every submitted program along with the tick it was submitted at, or null
+     */
+    public void setRecorder(SubmissionRecorderInterface recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Makes jobs get admitted on the thread that submits them, or that reports a change of load, instead of the admission thread.
+     * Together with {@link ShortTermScheduler#runUntil(long)}, this runs a whole simulation on one thread,
+     * so that a replayed workload always gives the same results. The admission thread must then not be started.
+     */
+    public void admitInline() {
+        admitInline = true;
+    }
+
     @Override
     public void run() {
+        admissionThread = Thread.currentThread();
         while (running) {
-            int currentLoad = interSchedulerInterface.getProcessLoad();
-            if (currentLoad < maxLoad) {
-                if (submissionQueue.isEmpty()) {
-                    continue;
-                }
-                interSchedulerInterface.addProcess(new SimulatedProcess(submissionQueue.remove(), useNextPid()));
+            if (!admitNext()) {
+                // Any submission or load change after the check in admitNext leaves a permit, so no wake up is lost
+                LockSupport.park(this);
             }
         }
     }
 
+    /**
+     * @return Whether a job was admitted, which is false if there is none waiting or no room for it
+     */
+    private boolean admitNext() {
+        Submission submission = submissionQueue.peek();
+        if (submission == null || interSchedulerInterface.getProcessLoad() >= maxLoad) {
+            return false;
+        }
+        submissionQueue.remove();
+        interSchedulerInterface.addProcess(new SimulatedProcess(submission.program, useNextPid(),
+                submission.priority, submission.affinity));
+        recordAdmission(System.nanoTime() - submission.submitTime);
+        return true;
+    }
+
     public void stop() {
         running = false;
+        wakeUp();
+        synchronized (this) {
+            if (loaderPool != null) {
+                loaderPool.shutdownNow();
+            }
+        }
     }
 
     @Override
-    public boolean submitJob(String fileName) {
+    public void loadChanged() {
+        wakeUp();
+    }
+
+    private void wakeUp() {
+        if (admitInline) {
+            while (running && admitNext()) {
+                // Admit until nothing is waiting or there is no more room
+            }
+            return;
+        }
+        Thread thread = admissionThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public boolean submitJob(String fileName, int priority, int affinity) {
 
         Program program = loader.loadProgram(fileName);
         if (program == null) {
             return false;
         }
-        submissionQueue.add(program);
+        submitProgram(program, priority, affinity);
         return true;
     }
 
+    /**
+     * @param program A program that is already loaded, e.g. one read back from a recorded workload.
+     * Queues the program for admission at the default priority.
+     */
+    public void submitProgram(Program program) {
+        submitProgram(program, SimulatedProcess.DEFAULT_PRIORITY);
+    }
+
+    /**
+     * @param program A program that is already loaded, e.g. one read back from a recorded workload.
+     * @param priority The priority of the process, which only the priority policy looks at. Higher runs first.
+     * Queues the program for admission, without pinning it to a CPU.
+     */
+    public void submitProgram(Program program, int priority) {
+        submitProgram(program, priority, SimulatedProcess.NO_AFFINITY);
+    }
+
+    /**
+     * @param program A program that is already loaded, e.g. one read back from a recorded workload.
+     * @param priority The priority of the process, which only the priority policy looks at. Higher runs first.
+     * @param affinity The index of the CPU the process is pinned to, or {@link SimulatedProcess#NO_AFFINITY}.
+     * Queues the program for admission, like {@link #submitJob(String, int, int)} does once it has loaded a program.
+     */
+    public void submitProgram(Program program, int priority, int affinity) {
+        SubmissionRecorderInterface recorder = this.recorder;
+        if (recorder != null) {
+            recorder.recordSubmission(interSchedulerInterface.getClock(), program, priority, affinity);
+        }
+        synchronized (this) {
+            submittedCount++;
+        }
+        submissionQueue.add(new Submission(program, priority, affinity, System.nanoTime()));
+        wakeUp();
+    }
+
+    @Override
+    public BatchSubmission submitJobs(List<String> fileNames, int priority) {
+        BatchSubmission batch = new BatchSubmission(fileNames, program -> submitProgram(program, priority));
+        if (fileNames.isEmpty()) {
+            return batch;
+        }
+        AtomicInteger nextIndex = new AtomicInteger();
+        Runnable worker = () -> {
+            for (int i = nextIndex.getAndIncrement(); i < fileNames.size(); i = nextIndex.getAndIncrement()) {
+                batch.loaded(i, loadQuietly(fileNames.get(i)));
+            }
+        };
+        ExecutorService pool = getLoaderPool();
+        for (int i = 0; i < Math.min(loaderThreadCount, fileNames.size()); i++) {
+            pool.execute(worker);
+        }
+        return batch;
+    }
+
+    @Override
+    public CompletableFuture<BatchSubmission> submitMatching(String pattern, int priority) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return ProgramFiles.resolve(pattern);
+            } catch (IOException e) {
+                System.err.printf("Failed to list jobs '%s'\nException: '%s'\n", pattern, e.getMessage());
+                return List.<String>of();
+            }
+        }, getLoaderPool()).thenCompose(fileNames -> submitJobs(fileNames, priority).getCompletion());
+    }
+
+    /**
+     * @return The program, or null if the loader failed to load it or rejected its name
+     */
+    private Program loadQuietly(String fileName) {
+        try {
+            return loader.loadProgram(fileName);
+        } catch (RuntimeException e) {
+            System.err.printf("Failed to load program '%s'\nException: '%s'\n", fileName, e.getMessage());
+            return null;
+        }
+    }
+
+    private synchronized ExecutorService getLoaderPool() {
+        if (loaderPool == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            loaderPool = Executors.newFixedThreadPool(loaderThreadCount, runnable -> {
+                Thread thread = new Thread(runnable, "loader-" + threadCount.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return loaderPool;
+    }
+
     @Override
     public void displaySubmissionQueue() {
         if (notificationObserver != null) {
             StringBuilder message = new StringBuilder("Submission queue:");
-            for (var program : submissionQueue) {
-                message.append(" | ").append(program.getFilename());
+            for (var submission : submissionQueue) {
+                message.append(" | ").append(submission.program.getFilename());
+            }
+            synchronized (this) {
+                if (admittedCount > 0) {
+                    message.append(String.format("\nAdmission latency: mean %.3f ms, max %.3f ms over %d jobs",
+                            totalAdmissionLatency / (admittedCount * 1e6), maxAdmissionLatency / 1e6, admittedCount));
+                }
             }
             notificationObserver.display(message.toString());
         }
     }
 
+    /**
+     * @return The number of jobs submitted so far, counting only the ones whose program could be loaded
+     */
+    public synchronized long getSubmittedCount() {
+        return submittedCount;
+    }
+
+    /**
+     * @return The number of jobs admitted into the short term scheduler so far
+     */
+    public synchronized long getAdmittedCount() {
+        return admittedCount;
+    }
+
+    /**
+     * @return The mean time between the submission of a job and its admission, in nanoseconds
+     */
+    public synchronized double getMeanAdmissionLatency() {
+        return admittedCount == 0 ? 0 : totalAdmissionLatency / (double) admittedCount;
+    }
+
+    /**
+     * @return The longest time between the submission of a job and its admission, in nanoseconds
+     */
+    public synchronized long getMaxAdmissionLatency() {
+        return maxAdmissionLatency;
+    }
+
+    private synchronized void recordAdmission(long latency) {
+        admittedCount++;
+        totalAdmissionLatency += latency;
+        maxAdmissionLatency = Math.max(maxAdmissionLatency, latency);
+    }
+
+    /**
+     * @param out Where to write the state of the scheduler.
+     * @param programs Gives the number a program is written as.
+     * Writes the submission queue in order, with how long every job has waited so far, the next pid and the counters.
+     * Jobs that are still being loaded are not part of the queue yet.
+     */
+    void writeCheckpoint(DataOutput out, ToIntFunction<Program> programs) throws IOException {
+        List<Submission> submissions = new ArrayList<>(submissionQueue);
+        long now = System.nanoTime();
+        synchronized (this) {
+            out.writeLong(nextPid);
+            out.writeLong(submittedCount);
+            out.writeLong(admittedCount);
+            out.writeLong(totalAdmissionLatency);
+            out.writeLong(maxAdmissionLatency);
+        }
+        out.writeInt(submissions.size());
+        for (Submission submission : submissions) {
+            out.writeInt(programs.applyAsInt(submission.program));
+            out.writeInt(submission.priority);
+            out.writeInt(submission.affinity);
+            out.writeLong(now - submission.submitTime);
+        }
+    }
+
+    /**
+     * @param in Where to read the state from.
+     * @param programs Gives back the program written as a number.
+     * Puts this scheduler, which must not have had any submission yet, where {@link #writeCheckpoint} left the other one,
+     * and admits the jobs that fit in its short term scheduler.
+     */
+    void readCheckpoint(DataInput in, IntFunction<Program> programs) throws IOException {
+        synchronized (this) {
+            if (submittedCount != 0 || !submissionQueue.isEmpty()) {
+                throw new IllegalStateException("Only a new scheduler can be restored from a checkpoint");
+            }
+            nextPid = in.readLong();
+            submittedCount = in.readLong();
+            admittedCount = in.readLong();
+            totalAdmissionLatency = in.readLong();
+            maxAdmissionLatency = in.readLong();
+        }
+        long now = System.nanoTime();
+        for (int i = in.readInt(); i > 0; i--) {
+            Program program = programs.apply(in.readInt());
+            int priority = in.readInt();
+            int affinity = in.readInt();
+            submissionQueue.add(new Submission(program, priority, affinity, now - in.readLong()));
+        }
+        wakeUp();
+    }
+
     /**
      * @return The next pid to be used for the process
      * This updates the pid
@@ -85,4 +357,21 @@ public class LongTermScheduler implements Runnable, SubmissionInterface {
     private long useNextPid() {
         return nextPid++;
     }
+
+    /**
+     * A program waiting for admission, along with its priority, its affinity and the time it was submitted at
+     */
+    private static class Submission {
+        private final Program program;
+        private final int priority;
+        private final int affinity;
+        private final long submitTime;
+
+        Submission(Program program, int priority, int affinity, long submitTime) {
+            this.program = program;
+            this.priority = priority;
+            this.affinity = affinity;
+            this.submitTime = submitTime;
+        }
+    }
 }
@@ -0,0 +1,370 @@
+package simulation;
+
+import interfaces.ControlInterface;
+import interfaces.InterSchedulerInterface;
+import interfaces.LoadObserverInterface;
+import interfaces.NotificationInterface;
+import interfaces.VirtualTimeInterface;
+import metrics.SchedulingMetrics;
+import policy.PlacementStrategy;
+import policy.SchedulingPolicy;
+import policy.TwoQueuePolicy;
+import trace.EventTracer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Simulates a machine with several CPUs, or a cluster of single-CPU nodes.
+ * Every core is a short term scheduler with its own ready and blocked queues, driven by its own thread,
+ * or driven in lockstep by the caller in virtual time.
+ * New processes go to the core they are pinned to, or else to the core the placement strategy picks,
+ * and a core that runs out of work steals ready processes from the busiest one.
+ */
+public class MultiCoreScheduler implements Runnable, ControlInterface, InterSchedulerInterface,
+        LoadObserverInterface, VirtualTimeInterface, ShortTermScheduler.WorkSource {
+    /**
+     * The ticks the cores run for in one step of the lockstep, when driven in virtual time
+     */
+    private static final long DEFAULT_MIGRATION_INTERVAL = 100;
+
+    private final List<ShortTermScheduler> cores;
+    private final PlacementStrategy placement;
+    private NotificationInterface notificationObserver;
+    private LoadObserverInterface loadObserver;
+    private volatile boolean running;
+    private volatile int migrationThreshold;
+    private long migrationInterval;
+
+    /**
+     * @param coreCount The number of simulated CPUs
+     * @param quantum The quantum used by every core
+     * @param realTimePacing Whether the cores pace their ticks in real time
+     */
+    public MultiCoreScheduler(int coreCount, int quantum, boolean realTimePacing) {
+        this(coreCount, quantum, realTimePacing, TwoQueuePolicy::new);
+    }
+
+    /**
+     * @param coreCount The number of simulated CPUs
+     * @param quantum The quantum used by every core
+     * @param realTimePacing Whether the cores pace their ticks in real time
+     * @param policyFactory Creates the scheduling policy of each core
+     */
+    public MultiCoreScheduler(int coreCount, int quantum, boolean realTimePacing, Supplier<SchedulingPolicy> policyFactory) {
+        this(coreCount, quantum, realTimePacing, policyFactory, PlacementStrategy.leastLoaded());
+    }
+
+    /**
+     * @param coreCount The number of simulated CPUs
+     * @param quantum The quantum used by every core
+     * @param realTimePacing Whether the cores pace their ticks in real time
+     * @param policyFactory Creates the scheduling policy of each core
+     * @param placement Picks the core of every process that is not pinned to one
+     */
+    public MultiCoreScheduler(int coreCount, int quantum, boolean realTimePacing, Supplier<SchedulingPolicy> policyFactory,
+                              PlacementStrategy placement) {
+        this.placement = placement;
+        cores = new ArrayList<>(coreCount);
+        for (int i = 0; i < coreCount; i++) {
+            ShortTermScheduler core = new ShortTermScheduler(quantum, realTimePacing, policyFactory.get());
+            core.setCore(i, this);
+            core.setLoadObserver(this);
+            cores.add(core);
+        }
+        notificationObserver = null;
+        loadObserver = null;
+        running = false;
+        migrationThreshold = 1;
+        migrationInterval = DEFAULT_MIGRATION_INTERVAL;
+    }
+
+    public void setNotificationObserver(NotificationInterface notificationObserver) {
+        this.notificationObserver = notificationObserver;
+    }
+
+    /**
+     * @param tracer The tracer shared by all cores, which must accept events from several threads
+     */
+    public void setTracer(EventTracer tracer) {
+        for (ShortTermScheduler core : cores) {
+            core.setTracer(tracer);
+        }
+    }
+
+    /**
+     * @param device A device every core gets its own copy of, like the disk of every node of a cluster.
+     */
+    public void addDevice(IoDevice device) {
+        for (ShortTermScheduler core : cores) {
+            core.addDevice(device);
+        }
+    }
+
+    /**
+     * @param migrationThreshold The fewest ready processes a core must have for an idle core to take one of them,
+     *                           or 0 to never move processes between cores. Defaults to 1.
+     */
+    public void setMigrationThreshold(int migrationThreshold) {
+        this.migrationThreshold = migrationThreshold;
+    }
+
+    /**
+     * @param migrationInterval The ticks the cores run for in one step of the lockstep, when driven in virtual time
+     *                          by {@link #runUntil(long)}. Cores only take processes from each other between steps,
+     *                          and a process admitted while one core runs its step arrives at the clock of its own core.
+     */
+    public void setMigrationInterval(long migrationInterval) {
+        this.migrationInterval = migrationInterval;
+    }
+
+    public int getCoreCount() {
+        return cores.size();
+    }
+
+    @Override
+    public void setLoadObserver(LoadObserverInterface loadObserver) {
+        this.loadObserver = loadObserver;
+    }
+
+    @Override
+    public void loadChanged() {
+        if (loadObserver != null) {
+            loadObserver.loadChanged();
+        }
+    }
+
+    /**
+     * Starts one thread per core, and waits for them.
+     */
+    @Override
+    public void run() {
+        List<Thread> threads = new ArrayList<>(cores.size());
+        for (ShortTermScheduler core : cores) {
+            Thread thread = new Thread(core, "core-" + core.getCore());
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param tick The tick to stop at.
+     * Runs every core on the calling thread, in lockstep, until the clock reaches the given tick.
+     * Between steps, every core that has nothing ready takes a process from the busiest core, as the threads would.
+     * Since nothing runs on another thread, the same submissions always give the same metrics.
+     */
+    @Override
+    public void runUntil(long tick) {
+        if (tick == Long.MAX_VALUE) {
+            runToCompletion();
+            return;
+        }
+        long clock = getClock();
+        while (clock < tick) {
+            long next = tick - clock <= migrationInterval ? tick : clock + migrationInterval;
+            for (ShortTermScheduler core : cores) {
+                core.runUntil(next);
+            }
+            clock = next;
+            migrate();
+        }
+    }
+
+    /**
+     * Runs every core on the calling thread, in lockstep, until every process added so far is done.
+     * The clock may end up to a step after the last process finished.
+     * Returns at once if the simulation is not running, or as soon as it is suspended or stopped.
+     */
+    @Override
+    public void runToCompletion() {
+        while (running && getProcessLoad() > 0) {
+            runUntil(getClock() + migrationInterval);
+        }
+    }
+
+    /**
+     * Lets every core that has nothing ready take a process from the busiest core.
+     */
+    private void migrate() {
+        if (migrationThreshold == 0) {
+            return;
+        }
+        for (ShortTermScheduler thief : cores) {
+            if (thief.getReadyCount() == 0) {
+                Map.Entry<SimulatedProcess, ShortTermScheduler.SchedulerProcessData> stolen = steal(thief);
+                if (stolen != null) {
+                    thief.adopt(stolen);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param thief The core that has nothing to run.
+     * @return A ready process taken from the core with the most ready processes,
+     * or null if no core has at least the migration threshold of them
+     */
+    @Override
+    public Map.Entry<SimulatedProcess, ShortTermScheduler.SchedulerProcessData> steal(ShortTermScheduler thief) {
+        int threshold = migrationThreshold;
+        if (threshold == 0) {
+            return null;
+        }
+        ShortTermScheduler victim = null;
+        int victimReadyCount = threshold - 1;
+        for (ShortTermScheduler core : cores) {
+            if (core == thief) {
+                continue;
+            }
+            int readyCount = core.getReadyCount();
+            if (readyCount > victimReadyCount) {
+                victim = core;
+                victimReadyCount = readyCount;
+            }
+        }
+        if (victim == null) {
+            return null;
+        }
+        return victim.takeReadyProcess(thief.getCore());
+    }
+
+    /**
+     * @param process The simulated process.
+     * Adds the process to the core it is pinned to, or else to the core the placement strategy picks.
+     */
+    @Override
+    public void addProcess(SimulatedProcess process) {
+        int affinity = process.getAffinity();
+        if (affinity >= 0 && affinity < cores.size()) {
+            cores.get(affinity).addProcess(process);
+            return;
+        }
+        cores.get(placement.place(process, cores.size(), core -> cores.get(core).getProcessLoad())).addProcess(process);
+    }
+
+    /**
+     * @return The number of processes over all cores, or "Infinity" if the simulation is not running
+     */
+    @Override
+    public int getProcessLoad() {
+        if (!running) {
+            return Integer.MAX_VALUE;
+        }
+        int load = 0;
+        for (ShortTermScheduler core : cores) {
+            int coreLoad = core.getProcessLoad();
+            if (coreLoad == Integer.MAX_VALUE) {
+                return Integer.MAX_VALUE;
+            }
+            load += coreLoad;
+        }
+        return load;
+    }
+
+    /**
+     * @return The clock of the core that is furthest ahead, since every core keeps its own clock
+     */
+    @Override
+    public long getClock() {
+        long clock = 0;
+        for (ShortTermScheduler core : cores) {
+            clock = Math.max(clock, core.getClock());
+        }
+        return clock;
+    }
+
+    @Override
+    public void startSimulation() {
+        running = true;
+        for (ShortTermScheduler core : cores) {
+            core.startSimulation();
+        }
+    }
+
+    @Override
+    public void suspendSimulation() {
+        running = false;
+        for (ShortTermScheduler core : cores) {
+            core.suspendSimulation();
+        }
+    }
+
+    @Override
+    public void resumeSimulation() {
+        running = true;
+        for (ShortTermScheduler core : cores) {
+            core.resumeSimulation();
+        }
+    }
+
+    @Override
+    public void stopSimulation() {
+        running = false;
+        for (ShortTermScheduler core : cores) {
+            core.stopSimulation();
+        }
+    }
+
+    /**
+     * @return The metrics of all cores merged together
+     */
+    @Override
+    public SchedulingMetrics getMetrics() {
+        SchedulingMetrics metrics = new SchedulingMetrics();
+        for (ShortTermScheduler core : cores) {
+            metrics.merge(core.getMetrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * @return One line per core with its load, its throughput and latency so far, and the processes it took from other cores,
+     * followed by how evenly the work was spread
+     */
+    public String describeCores() {
+        StringBuilder description = new StringBuilder(String.format(Locale.ROOT, "%-6s %6s %10s %7s %16s %14s %13s %9s\n",
+                "core", "load", "completed", "busy %", "turnaround mean", "turnaround p99", "waiting p99", "migrated"));
+        long mostCompleted = 0;
+        long totalCompleted = 0;
+        for (ShortTermScheduler core : cores) {
+            SchedulingMetrics metrics = core.getMetrics();
+            description.append(String.format(Locale.ROOT, "%-6d %6d %10d %7.1f %16.1f %14d %13d %9d\n", core.getCore(),
+                    core.getProcessLoad() == Integer.MAX_VALUE ? 0 : core.getProcessLoad(), metrics.getCompletedCount(),
+                    metrics.getCpuUtilization() * 100, metrics.getTurnaroundTime().getMean(),
+                    metrics.getTurnaroundTime().getPercentile(99), metrics.getWaitingTime().getPercentile(99),
+                    core.getStolenCount()));
+            mostCompleted = Math.max(mostCompleted, metrics.getCompletedCount());
+            totalCompleted += metrics.getCompletedCount();
+        }
+        double meanCompleted = (double) totalCompleted / cores.size();
+        description.append(String.format(Locale.ROOT, "Most completed on one core: %d, %.2f times the mean\n",
+                mostCompleted, meanCompleted == 0 ? 0 : mostCompleted / meanCompleted));
+        return description.toString();
+    }
+
+    /**
+     * Displays the latest published snapshot of every core, without waiting for any of them.
+     */
+    @Override
+    public void displayProcessQueues() {
+        if (notificationObserver != null) {
+            StringBuilder message = new StringBuilder();
+            for (ShortTermScheduler core : cores) {
+                QueueSnapshot snapshot = core.getQueueSnapshot();
+                message.append("Core ").append(core.getCore()).append(" (").append(snapshot.describeActivity()).append(")\n");
+                message.append(snapshot.describeQueues());
+            }
+            notificationObserver.display(message.toString());
+        }
+    }
+}
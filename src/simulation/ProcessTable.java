@@ -0,0 +1,310 @@
+package simulation;
+
+import policy.SchedulingPolicy;
+import program.Program;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * The scheduling data of every process a short term scheduler holds, stored as parallel primitive arrays.
+ * Every process gets a slot, which it keeps until it leaves the scheduler, and whose index it remembers,
+ * so looking a process up is an array access instead of a hash lookup.
+ * The slots of processes that left are reused before the table grows.
+ */
+class ProcessTable {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private SimulatedProcess[] processes;
+    private long[] arrivalTicks;
+    private long[] firstRunTicks;
+    private long[] readySince;
+    private long[] readyWaitTicks;
+    private long[] longestWaitTicks;
+    private long[] blockedSince;
+    private long[] blockedTicks;
+    private int[] devices;
+    private int[] freeSlots;
+    private int freeCount;
+    private int usedSlots;
+    private int size;
+
+    ProcessTable() {
+        allocate(INITIAL_CAPACITY);
+        freeCount = 0;
+        usedSlots = 0;
+        size = 0;
+    }
+
+    /**
+     * @param process The process that joins the scheduler.
+     * @param tick The tick at which it arrives.
+     * @return The slot of the process, which the process also remembers.
+     */
+    int add(SimulatedProcess process, long tick) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (usedSlots == processes.length) {
+                grow();
+            }
+            slot = usedSlots++;
+        }
+        processes[slot] = process;
+        arrivalTicks[slot] = tick;
+        firstRunTicks[slot] = -1;
+        readySince[slot] = tick;
+        readyWaitTicks[slot] = 0;
+        longestWaitTicks[slot] = 0;
+        blockedSince[slot] = 0;
+        blockedTicks[slot] = 0;
+        devices[slot] = -1;
+        process.setSlot(slot);
+        size++;
+        return slot;
+    }
+
+    /**
+     * @param process The process that joins the scheduler, coming from another one.
+     * @param data Its scheduling data, with ticks relative to the clock of the scheduler it comes from.
+     * @param tick The current tick of this scheduler.
+     * @return The slot of the process.
+     */
+    int add(SimulatedProcess process, ShortTermScheduler.SchedulerProcessData data, long tick) {
+        int slot = add(process, tick);
+        arrivalTicks[slot] = data.arrivalTick + tick;
+        firstRunTicks[slot] = data.firstRunTick < 0 ? -1 : data.firstRunTick + tick;
+        readySince[slot] = data.readySince + tick;
+        readyWaitTicks[slot] = data.readyWaitTicks;
+        longestWaitTicks[slot] = data.longestWaitTicks;
+        blockedSince[slot] = data.blockedSince + tick;
+        blockedTicks[slot] = data.blockedTicks;
+        return slot;
+    }
+
+    /**
+     * @param slot The slot of a ready process that leaves for another scheduler.
+     * @param tick The current tick of this scheduler.
+     * @return The scheduling data of the process, with ticks relative to the current tick. The slot is freed.
+     */
+    ShortTermScheduler.SchedulerProcessData export(int slot, long tick) {
+        ShortTermScheduler.SchedulerProcessData data = new ShortTermScheduler.SchedulerProcessData();
+        data.arrivalTick = arrivalTicks[slot] - tick;
+        data.firstRunTick = firstRunTicks[slot] < 0 ? -1 : firstRunTicks[slot] - tick;
+        // The time spent waiting here counts, and the wait goes on from the moment the process arrives over there
+        data.readyWaitTicks = readyWaitTicks[slot] + tick - readySince[slot];
+        data.longestWaitTicks = Math.max(longestWaitTicks[slot], tick - readySince[slot]);
+        data.readySince = 0;
+        data.blockedSince = blockedSince[slot] - tick;
+        data.blockedTicks = blockedTicks[slot];
+        remove(slot);
+        return data;
+    }
+
+    void remove(int slot) {
+        processes[slot].setSlot(-1);
+        processes[slot] = null;
+        freeSlots[freeCount++] = slot;
+        size--;
+    }
+
+    SimulatedProcess getProcess(int slot) {
+        return processes[slot];
+    }
+
+    /**
+     * @param slot The slot of the process that gets the CPU.
+     * @param tick The tick at which it does.
+     */
+    void dispatched(int slot, long tick) {
+        if (firstRunTicks[slot] < 0) {
+            firstRunTicks[slot] = tick;
+        }
+        readyWaitTicks[slot] += tick - readySince[slot];
+        longestWaitTicks[slot] = Math.max(longestWaitTicks[slot], tick - readySince[slot]);
+    }
+
+    /**
+     * @param slot The slot of the process that ran an execute instruction and goes back to the ready queues.
+     * @param tick The tick at which it does.
+     */
+    void requeued(int slot, long tick) {
+        readySince[slot] = tick;
+    }
+
+    /**
+     * @param slot The slot of the process that ran a block instruction.
+     * @param tick The tick at which it blocked.
+     */
+    void blocked(int slot, long tick) {
+        blockedSince[slot] = tick;
+    }
+
+    /**
+     * @param slot The slot of the process that woke up.
+     * @param tick The tick at which it did.
+     */
+    void unblocked(int slot, long tick) {
+        blockedTicks[slot] += tick - blockedSince[slot];
+        readySince[slot] = tick;
+    }
+
+    long getArrivalTick(int slot) {
+        return arrivalTicks[slot];
+    }
+
+    long getFirstRunTick(int slot) {
+        return firstRunTicks[slot];
+    }
+
+    long getReadyWaitTicks(int slot) {
+        return readyWaitTicks[slot];
+    }
+
+    /**
+     * @return The longest the process waited in the ready queues in one go
+     */
+    long getLongestWaitTicks(int slot) {
+        return longestWaitTicks[slot];
+    }
+
+    long getBlockedTicks(int slot) {
+        return blockedTicks[slot];
+    }
+
+    /**
+     * @param slot The slot of a blocked process.
+     * @param device The index of the device the process waits for in its scheduler, or -1 if it waits for none.
+     */
+    void setDevice(int slot, int device) {
+        devices[slot] = device;
+    }
+
+    /**
+     * @return The index of the device the process waits for, or -1 if it waits for none
+     */
+    int getDevice(int slot) {
+        return devices[slot];
+    }
+
+    /**
+     * @return The number of processes in the table
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param out Where to write the table.
+     * @param programs Gives the number a program is written as.
+     * @param policy The policy that keeps the scheduling state of the processes.
+     * Writes every slot in use, with its process and its data, and the free slots in the order they will be reused,
+     * so that {@link #readFrom} puts every process back in the same slot.
+     */
+    void writeTo(DataOutput out, ToIntFunction<Program> programs, SchedulingPolicy policy) throws IOException {
+        out.writeInt(usedSlots);
+        out.writeInt(freeCount);
+        for (int i = 0; i < freeCount; i++) {
+            out.writeInt(freeSlots[i]);
+        }
+        for (int slot = 0; slot < usedSlots; slot++) {
+            out.writeBoolean(processes[slot] != null);
+            if (processes[slot] == null) {
+                continue;
+            }
+            processes[slot].writeTo(out, programs, policy);
+            out.writeLong(arrivalTicks[slot]);
+            out.writeLong(firstRunTicks[slot]);
+            out.writeLong(readySince[slot]);
+            out.writeLong(readyWaitTicks[slot]);
+            out.writeLong(longestWaitTicks[slot]);
+            out.writeLong(blockedSince[slot]);
+            out.writeLong(blockedTicks[slot]);
+            out.writeInt(devices[slot]);
+        }
+    }
+
+    /**
+     * @param in Where to read the table from.
+     * @param programs Gives back the program written as a number.
+     * @param policy The policy that takes the scheduling state of the processes.
+     * Replaces the content of this table, which must be empty, with the one written by {@link #writeTo}.
+     */
+    void readFrom(DataInput in, IntFunction<Program> programs, SchedulingPolicy policy) throws IOException {
+        int used = in.readInt();
+        int free = in.readInt();
+        if (used < 0 || free < 0 || free > used) {
+            throw new IOException("Corrupt process table");
+        }
+        allocate(Math.max(INITIAL_CAPACITY, used));
+        for (int i = 0; i < free; i++) {
+            freeSlots[i] = in.readInt();
+        }
+        freeCount = free;
+        usedSlots = used;
+        size = 0;
+        for (int slot = 0; slot < used; slot++) {
+            if (!in.readBoolean()) {
+                continue;
+            }
+            processes[slot] = SimulatedProcess.readFrom(in, programs, policy);
+            processes[slot].setSlot(slot);
+            arrivalTicks[slot] = in.readLong();
+            firstRunTicks[slot] = in.readLong();
+            readySince[slot] = in.readLong();
+            readyWaitTicks[slot] = in.readLong();
+            longestWaitTicks[slot] = in.readLong();
+            blockedSince[slot] = in.readLong();
+            blockedTicks[slot] = in.readLong();
+            devices[slot] = in.readInt();
+            size++;
+        }
+        if (size + freeCount != usedSlots) {
+            throw new IOException("Corrupt process table");
+        }
+    }
+
+    void clear() {
+        for (int slot = 0; slot < usedSlots; slot++) {
+            if (processes[slot] != null) {
+                processes[slot].setSlot(-1);
+            }
+        }
+        allocate(INITIAL_CAPACITY);
+        freeCount = 0;
+        usedSlots = 0;
+        size = 0;
+    }
+
+    private void allocate(int capacity) {
+        processes = new SimulatedProcess[capacity];
+        arrivalTicks = new long[capacity];
+        firstRunTicks = new long[capacity];
+        readySince = new long[capacity];
+        readyWaitTicks = new long[capacity];
+        longestWaitTicks = new long[capacity];
+        blockedSince = new long[capacity];
+        blockedTicks = new long[capacity];
+        devices = new int[capacity];
+        freeSlots = new int[capacity];
+    }
+
+    private void grow() {
+        int capacity = processes.length * 2;
+        processes = Arrays.copyOf(processes, capacity);
+        arrivalTicks = Arrays.copyOf(arrivalTicks, capacity);
+        firstRunTicks = Arrays.copyOf(firstRunTicks, capacity);
+        readySince = Arrays.copyOf(readySince, capacity);
+        readyWaitTicks = Arrays.copyOf(readyWaitTicks, capacity);
+        longestWaitTicks = Arrays.copyOf(longestWaitTicks, capacity);
+        blockedSince = Arrays.copyOf(blockedSince, capacity);
+        blockedTicks = Arrays.copyOf(blockedTicks, capacity);
+        devices = Arrays.copyOf(devices, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+    }
+}
@@ -0,0 +1,99 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable copy of the queues of a short term scheduler, as they were at some tick.
+ * The scheduler publishes a new snapshot when asked for one, so readers never wait for the scheduler's lock.
+ * The version grows with every change to the queues, so two snapshots with the same version show the same state.
+ */
+public class QueueSnapshot {
+    private final long version;
+    private final long clock;
+    private final List<SimulatedProcess> blocked;
+    private final Map<String, List<SimulatedProcess>> readyQueues;
+    private final long dispatchCount;
+    private final long idleTicks;
+    private final long stolenCount;
+
+    QueueSnapshot(long version, long clock, List<SimulatedProcess> blocked, Map<String, List<SimulatedProcess>> readyQueues,
+                  long dispatchCount, long idleTicks, long stolenCount) {
+        this.version = version;
+        this.clock = clock;
+        this.blocked = Collections.unmodifiableList(new ArrayList<>(blocked));
+        Map<String, List<SimulatedProcess>> queues = new LinkedHashMap<>();
+        for (var queue : readyQueues.entrySet()) {
+            queues.put(queue.getKey(), Collections.unmodifiableList(new ArrayList<>(queue.getValue())));
+        }
+        this.readyQueues = Collections.unmodifiableMap(queues);
+        this.dispatchCount = dispatchCount;
+        this.idleTicks = idleTicks;
+        this.stolenCount = stolenCount;
+    }
+
+    /**
+     * @return A snapshot of a scheduler that did not publish anything yet
+     */
+    static QueueSnapshot empty() {
+        return new QueueSnapshot(-1, 0, List.of(), Map.of(), 0, 0, 0);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The tick at which the snapshot was taken
+     */
+    public long getClock() {
+        return clock;
+    }
+
+    /**
+     * @return The blocked processes, in the order they will be unblocked
+     */
+    public List<SimulatedProcess> getBlocked() {
+        return blocked;
+    }
+
+    /**
+     * @return The ready queues of the scheduling policy, by name
+     */
+    public Map<String, List<SimulatedProcess>> getReadyQueues() {
+        return readyQueues;
+    }
+
+    /**
+     * @return A description of the blocked queue and of the ready queues, one per line
+     */
+    public String describeQueues() {
+        StringBuilder message = new StringBuilder();
+        message.append("Blocked queue:");
+        appendProcesses(message, blocked);
+        message.append("\n");
+        for (var queue : readyQueues.entrySet()) {
+            message.append(queue.getKey()).append(":");
+            appendProcesses(message, queue.getValue());
+            message.append("\n");
+        }
+        return message.toString();
+    }
+
+    /**
+     * @return A one line summary of how busy the scheduler had been
+     */
+    public String describeActivity() {
+        return String.format("clock %d, dispatched %d, idle ticks %d, stolen %d",
+                clock, dispatchCount, idleTicks, stolenCount);
+    }
+
+    private static void appendProcesses(StringBuilder message, List<SimulatedProcess> processes) {
+        for (var process : processes) {
+            message.append(" (").append(process.getPid()).append(", ").append(process.getName()).append(")");
+        }
+    }
+}
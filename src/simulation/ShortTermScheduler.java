@@ -2,31 +2,119 @@ package simulation;
 
 import interfaces.ControlInterface;
 import interfaces.InterSchedulerInterface;
+import interfaces.LoadObserverInterface;
 import interfaces.NotificationInterface;
+import interfaces.VirtualTimeInterface;
+import metrics.LogHistogram;
+import metrics.SchedulingMetrics;
+import policy.SchedulingPolicy;
+import policy.TwoQueuePolicy;
+import program.Program;
+import trace.ConsoleTracer;
+import trace.EventTracer;
+import trace.TraceEventType;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
 
 /**
  * Implements the short term scheduler
  */
-public class ShortTermScheduler implements Runnable, ControlInterface, InterSchedulerInterface {
+public class ShortTermScheduler implements Runnable, ControlInterface, InterSchedulerInterface, VirtualTimeInterface {
+    private static final int BLOCKED_QUEUE_WHEEL_SIZE = 256;
+    private static final int STEAL_RETRY_INTERVAL = 1;
+    /**
+     * The most changes a scheduler in virtual time lets pile up before it publishes a new queue snapshot anyway
+     */
+    private static final int SNAPSHOT_INTERVAL = 4096;
 
-    private final Map<SimulatedProcess, SchedulerProcessData> processDataMap = new HashMap<>();
+    private final ProcessTable processTable = new ProcessTable();
     private NotificationInterface notificationObserver;
-    private final Queue<SimulatedProcess> blockedQueue;
-    private final Queue<SimulatedProcess> ioBoundReadyQueue;
-    private final Queue<SimulatedProcess> cpuBoundReadyQueue;
+    private LoadObserverInterface loadObserver;
+    private EventTracer tracer;
+    private final PriorityQueue<SimulationEvent> eventQueue;
+    private final BlockedQueue blockedQueue;
+    private final IntList unblockedBuffer = new IntList();
+    private final List<DeviceQueue> devices = new ArrayList<>();
+    private final Map<String, Integer> deviceIndexes = new HashMap<>();
+    private final SchedulingPolicy policy;
+    private final SchedulingMetrics metrics = new SchedulingMetrics();
     private final int quantum;
-    private boolean running;
+    private final boolean realTimePacing;
+    private volatile boolean running;
+    private final AtomicInteger load = new AtomicInteger();
+    private long modificationCount;
+    private volatile QueueSnapshot queueSnapshot;
+    private volatile boolean snapshotRequested;
+    private volatile boolean waiting;
+    private long clock;
+    private long nextEventSequence;
+    private int core;
+    private WorkSource workSource;
+    private long dispatchCount;
+    private long lastDispatchedPid;
+    private long idleTicks;
+    private long stolenCount;
     private final Object mutex = new Object();
 
     public ShortTermScheduler(int quantum) {
-        blockedQueue = new LinkedList<>();
-        ioBoundReadyQueue = new LinkedList<>();
-        cpuBoundReadyQueue = new LinkedList<>();
+        this(quantum, true);
+    }
+
+    /**
+     * @param quantum The duration of an instruction, in milliseconds of wall time when pacing in real time
+     * @param realTimePacing If true, every tick sleeps for the quantum, like a real CPU would.
+     *                       If false, the scheduler only advances its virtual clock and never sleeps.
+     */
+    public ShortTermScheduler(int quantum, boolean realTimePacing) {
+        this(quantum, realTimePacing, new TwoQueuePolicy());
+    }
+
+    /**
+     * @param quantum The duration of an instruction, in milliseconds of wall time when pacing in real time
+     * @param realTimePacing If true, every tick sleeps for the quantum, like a real CPU would.
+     *                       If false, the scheduler only advances its virtual clock and never sleeps.
+     * @param policy The policy that decides which ready process runs next
+     */
+    public ShortTermScheduler(int quantum, boolean realTimePacing, SchedulingPolicy policy) {
+        eventQueue = new PriorityQueue<>();
+        blockedQueue = new BlockedQueue(BLOCKED_QUEUE_WHEEL_SIZE);
+        this.policy = policy;
         this.quantum = quantum;
+        this.realTimePacing = realTimePacing;
         notificationObserver = null;
+        loadObserver = null;
+        tracer = new ConsoleTracer();
         running = false;
+        modificationCount = 0;
+        queueSnapshot = QueueSnapshot.empty();
+        snapshotRequested = false;
+        waiting = false;
+        clock = 0;
+        nextEventSequence = 0;
+        core = 0;
+        workSource = null;
+        dispatchCount = 0;
+        lastDispatchedPid = -1;
+        idleTicks = 0;
+        stolenCount = 0;
+    }
+
+    /**
+     * @param core The index of the simulated CPU this scheduler drives.
+     * @param workSource Where to steal ready processes from when this CPU has nothing to run, or null to never steal.
+     * Used by the {@link MultiCoreScheduler} to make this scheduler one of its cores.
+     */
+    void setCore(int core, WorkSource workSource) {
+        synchronized (mutex) {
+            this.core = core;
+            this.workSource = workSource;
+        }
     }
 
     public void setNotificationObserver(NotificationInterface notificationObserver) {
@@ -34,79 +122,233 @@ public class ShortTermScheduler implements Runnable, ControlInterface, InterSche
     }
 
     /**
-     * @param process A process that was unblocked.
-     * Puts a process that was just unblocked in the correct queue.
+     * @param device A device that block instructions naming it wait for, with its own service queue on this scheduler.
      */
-    private void addReadyProcess(SimulatedProcess process) {
-        if (processDataMap.get(process).isIoBound()) {
-            ioBoundReadyQueue.add(process);
-        } else {
-            cpuBoundReadyQueue.add(process);
+    public void addDevice(IoDevice device) {
+        synchronized (mutex) {
+            if (deviceIndexes.containsKey(device.getName())) {
+                throw new IllegalArgumentException("Duplicate device: " + device.getName());
+            }
+            deviceIndexes.put(device.getName(), devices.size());
+            devices.add(new DeviceQueue(device));
+        }
+    }
+
+    /**
+     * @param loadObserver The observer to be notified whenever there may be room for more processes
+     */
+    @Override
+    public void setLoadObserver(LoadObserverInterface loadObserver) {
+        this.loadObserver = loadObserver;
+    }
+
+    /**
+     * @param tracer The tracer that receives every instruction run and every process finished.
+     * Defaults to a {@link ConsoleTracer}.
+     */
+    public void setTracer(EventTracer tracer) {
+        synchronized (mutex) {
+            this.tracer = tracer;
+        }
+    }
+
+    private void notifyLoadChanged() {
+        if (loadObserver != null) {
+            loadObserver.loadChanged();
         }
     }
 
     /**
-     * @return true if the process could be run.
-     * Attempts to run a process in the CPU-bound queue, if there are any.
+     * @param process The process to be given the CPU.
+     * @param stopTick The tick the clock must not go past.
+     * Runs one instruction of the process, which takes one tick, and schedules the end of its quantum.
+     * When the caller drives the clock, a process that would keep the CPU runs its whole burst of executes at once instead,
+     * up to the next event or the point where the policy would preempt it.
+     * The caller paces the tick once it released the mutex.
      */
-    private boolean attemptRunCpuBoundProcess() {
-        if (cpuBoundReadyQueue.isEmpty()) {
-            return false;
+    private void dispatch(SimulatedProcess process, long stopTick) {
+        int slot = process.getSlot();
+        processTable.dispatched(slot, clock);
+        if (process.getPid() != lastDispatchedPid) {
+            lastDispatchedPid = process.getPid();
+            metrics.recordContextSwitch();
         }
-        SimulatedProcess process = cpuBoundReadyQueue.remove();
-        process.runInstruction(quantum);
-        if (process.isDone()) {
-            finalizeProcess(process);
-            return true;
+        int kept = realTimePacing ? 0 : keepRunning(process, stopTick);
+        dispatchCount += kept + 1;
+        metrics.recordBusyTicks(kept + 1);
+        if (kept > 0) {
+            process.runExecutes(kept);
+            for (int i = 0; i < kept; i++) {
+                tracer.record(clock + i, process.getPid(), process.getName(), TraceEventType.EXECUTE, 0);
+            }
+            clock += kept;
+            modificationCount += kept;
         }
-        if (process.isBlocked()) {
-            processDataMap.get(process).blockCount++;
-            blockedQueue.add(process);
-        } else {
-            processDataMap.get(process).executeCount++;
-            addReadyProcess(process);
+        boolean block = process.runInstruction();
+        tracer.record(clock, process.getPid(), process.getName(), TraceEventType.EXECUTE, 0);
+        if (block) {
+            tracer.record(clock, process.getPid(), process.getName(), TraceEventType.BLOCK, process.getBlockTime());
         }
-        return true;
+        scheduleEvent(clock + 1, SimulationEvent.Type.QUANTUM_EXPIRY, process);
+        advanceClock(clock + 1);
     }
 
     /**
-     * @return true if a process could be run.
-     * Attempts to run a process in the IO-bound queue, if there are any.
+     * @param process The process that was just picked.
+     * @param stopTick The tick the clock must not go past.
+     * @return The number of ticks the process keeps the CPU for before its last instruction of this dispatch.
+     * Nothing else may happen in those ticks: no process arrives or wakes up, and the process only runs executes.
      */
-    private boolean attemptRunIoBoundProcess() {
-        if (ioBoundReadyQueue.isEmpty()) {
-            return false;
+    private int keepRunning(SimulatedProcess process, long stopTick) {
+        long ticks = Math.min(process.getExecuteRunLength(), stopTick - clock) - 1;
+        if (ticks <= 0) {
+            return 0;
         }
-        SimulatedProcess process = ioBoundReadyQueue.remove();
-        process.runInstruction(quantum);
+        long nextEventTime = nextEventTime();
+        if (nextEventTime != -1) {
+            ticks = Math.min(ticks, nextEventTime - clock - 1);
+        }
+        return ticks <= 0 ? 0 : (int) policy.keepRunning(process, ticks);
+    }
+
+    /**
+     * @param process The process whose quantum expired.
+     * @param dispatchTick The tick in which the process ran.
+     * Puts the process back in the right place after it used the CPU.
+     */
+    private void expireQuantum(SimulatedProcess process, long dispatchTick) {
         if (process.isDone()) {
             finalizeProcess(process);
-            return true;
+            return;
         }
+        int slot = process.getSlot();
         if (process.isBlocked()) {
-            processDataMap.get(process).blockCount++;
-            blockedQueue.add(process);
+            processTable.blocked(slot, clock);
+            policy.blocked(process);
+            Integer device = process.getBlockDevice() == null ? null : deviceIndexes.get(process.getBlockDevice());
+            processTable.setDevice(slot, device == null ? -1 : device);
+            // The tick of the block instruction itself counts towards the block time, or is when the request reaches the device
+            if (device == null) {
+                blockedQueue.add(slot, dispatchTick + process.getBlockTime());
+            } else {
+                devices.get(device).request(slot, process.getBlockTime(), dispatchTick, blockedQueue);
+            }
         } else {
-            processDataMap.get(process).executeCount++;
-            addReadyProcess(process);
+            processTable.requeued(slot, clock);
+            policy.requeue(process);
+        }
+    }
+
+    private void scheduleEvent(long time, SimulationEvent.Type type, SimulatedProcess process) {
+        eventQueue.add(new SimulationEvent(time, type, process, nextEventSequence++));
+    }
+
+    /**
+     * @param time The tick to move the clock to.
+     * Moves the virtual clock forward and handles every event that is due by then.
+     */
+    private void advanceClock(long time) {
+        clock = time;
+        modificationCount++;
+        processDueEvents();
+    }
+
+    /**
+     * Handles every event that is due at the current tick, in order:
+     * first the process coming off the CPU, then the processes that unblock, then the arrivals.
+     */
+    private void processDueEvents() {
+        while (isEventDue(SimulationEvent.Type.QUANTUM_EXPIRY)) {
+            SimulationEvent event = eventQueue.remove();
+            expireQuantum(event.getProcess(), event.getTime() - 1);
+        }
+        updateBlockedQueue();
+        while (isEventDue(SimulationEvent.Type.ARRIVAL)) {
+            policy.add(eventQueue.remove().getProcess());
         }
-        return true;
+    }
+
+    private boolean isEventDue(SimulationEvent.Type type) {
+        return !eventQueue.isEmpty() && eventQueue.peek().getTime() <= clock && eventQueue.peek().getType() == type;
     }
 
     /**
-     * Goes through the entire blocked queue and checks for each process whether it should be unblocked or not.
+     * Moves the blocked queue to the current tick, and readies the processes that woke up.
+     * Only the processes that unblock are touched. A process that was served by a device makes room for the next
+     * request waiting for that device, whose service starts right away.
      */
     private void updateBlockedQueue() {
-        int n = blockedQueue.size();
-        for (int i=0;i<n;i++) {
-            SimulatedProcess process = blockedQueue.remove();
-            process.decrementBlockTime();
-            if (process.isBlocked()) {
-                blockedQueue.add(process);
-            } else {
-                addReadyProcess(process);
+        blockedQueue.advanceTo(clock, unblockedBuffer);
+        for (int i = 0; i < unblockedBuffer.size(); i++) {
+            int slot = unblockedBuffer.get(i);
+            int device = processTable.getDevice(slot);
+            if (device >= 0) {
+                devices.get(device).completed(clock, blockedQueue);
             }
+            SimulatedProcess process = processTable.getProcess(slot);
+            processTable.unblocked(slot, clock);
+            process.unblock();
+            policy.ready(process);
+        }
+        unblockedBuffer.clear();
+    }
+
+    /**
+     * @return The next tick at which an event happens, or -1 if nothing is scheduled
+     */
+    private long nextEventTime() {
+        long nextEventTime = eventQueue.isEmpty() ? -1 : eventQueue.peek().getTime();
+        long nextWakeTick = blockedQueue.nextWakeTick();
+        if (nextEventTime == -1 || (nextWakeTick != -1 && nextWakeTick < nextEventTime)) {
+            return nextWakeTick;
+        }
+        return nextEventTime;
+    }
+
+    /**
+     * Lets time pass while there is nothing to run.
+     * When pacing in real time this takes one tick, which the caller paces once it released the mutex.
+     * Otherwise, the clock jumps straight to the next event, or the thread waits for a process to arrive.
+     */
+    private void idle() {
+        long idleFrom = clock;
+        if (realTimePacing) {
+            advanceClock(clock + 1);
+        } else if (nextEventTime() != -1) {
+            advanceClock(nextEventTime());
+        } else {
+            waitForWork();
+        }
+        idleTicks += clock - idleFrom;
+    }
+
+    /**
+     * @param milliseconds The wall time to sleep for.
+     * Only sleeps when pacing in real time.
+     */
+    private void pace(long milliseconds) {
+        if (!realTimePacing) {
+            return;
+        }
+        try {
+            Thread.sleep(milliseconds);
+        } catch (InterruptedException e) {
+        }
+    }
+
+    /**
+     * Waits on the mutex until some other thread changes the state of the scheduler.
+     * Must be called while holding the mutex.
+     */
+    private void waitForWork() {
+        publishSnapshot();
+        waiting = true;
+        try {
+            // Other cores do not wake this one up when they get more work, so check back for work to steal
+            mutex.wait(workSource == null ? 0 : STEAL_RETRY_INTERVAL);
+        } catch (InterruptedException e) {
         }
+        waiting = false;
     }
 
     /**
@@ -115,41 +357,160 @@ public class ShortTermScheduler implements Runnable, ControlInterface, InterSche
      * Should be used after the process is done running.
      */
     private void finalizeProcess(SimulatedProcess process) {
-        processDataMap.remove(process);
+        int slot = process.getSlot();
+        metrics.recordCompletion(processTable.getArrivalTick(slot), processTable.getFirstRunTick(slot), clock,
+                processTable.getReadyWaitTicks(slot), processTable.getBlockedTicks(slot),
+                processTable.getLongestWaitTicks(slot), process.getPriority());
+        processTable.remove(slot);
+        load.decrementAndGet();
+        tracer.record(clock, process.getPid(), process.getName(), TraceEventType.FINISH, 0);
+        notifyLoadChanged();
     }
 
     @Override
     public void run() {
         while (true) {
-            try {
-                Thread.sleep(10);
-            } catch (InterruptedException e) {
-            }
+            pace(10);
+            boolean shouldSteal = false;
+            boolean tickPassed = false;
             synchronized (mutex) {
                 if (!running) {
+                    if (!realTimePacing) {
+                        waitForWork();
+                    } else {
+                        publishSnapshot();
+                    }
                     continue;
                 }
-                boolean shouldSimulateBlock = true;
-                if (attemptRunCpuBoundProcess()) {
-                    updateBlockedQueue();
-                    shouldSimulateBlock = false;
+                processDueEvents();
+                SimulatedProcess process = policy.pickNext();
+                if (process != null) {
+                    // Other threads add processes between ticks, so the scheduler thread never runs ahead of them
+                    dispatch(process, clock + 1);
+                    tickPassed = true;
+                } else if (workSource == null) {
+                    idle();
+                    tickPassed = true;
+                } else {
+                    shouldSteal = true;
                 }
-                if (attemptRunCpuBoundProcess()) {
-                    updateBlockedQueue();
-                    shouldSimulateBlock = false;
+                publishSnapshot();
+            }
+            if (shouldSteal) {
+                // Stealing takes the lock of another core, so it must not happen while holding this one
+                Map.Entry<SimulatedProcess, SchedulerProcessData> stolen = workSource.steal(this);
+                synchronized (mutex) {
+                    if (stolen != null) {
+                        adoptProcess(stolen);
+                    } else if (running && policy.size() == 0) {
+                        idle();
+                        tickPassed = true;
+                    }
+                    publishSnapshot();
                 }
-                if (attemptRunIoBoundProcess()) {
-                    updateBlockedQueue();
-                    shouldSimulateBlock = false;
+            }
+            // The mutex is not held while the tick passes, so readers and other cores are never kept waiting for it
+            if (tickPassed) {
+                pace(quantum);
+            }
+        }
+    }
+
+    /**
+     * Runs the simulation on the calling thread until every process added so far is done.
+     * This is meant for batch runs and benchmarks in virtual time, instead of starting the scheduler thread.
+     */
+    @Override
+    public void runToCompletion() {
+        runUntil(Long.MAX_VALUE);
+    }
+
+    /**
+     * @param tick The tick to stop at.
+     * Runs the simulation on the calling thread until the clock reaches the given tick,
+     * letting the clock jump to it if nothing happens before then.
+     * Like {@link #runToCompletion()}, this never sleeps and must not be mixed with the scheduler thread.
+     */
+    @Override
+    public void runUntil(long tick) {
+        synchronized (mutex) {
+            while (clock < tick) {
+                processDueEvents();
+                SimulatedProcess process = policy.pickNext();
+                if (process != null) {
+                    dispatch(process, tick);
+                    pace(quantum);
+                    publishSnapshot();
+                    continue;
                 }
-                if (shouldSimulateBlock) {
-                    try {
-                        Thread.sleep(quantum);
-                    } catch (InterruptedException e) {
-                    }
-                    updateBlockedQueue();
+                long nextEventTime = nextEventTime();
+                if (nextEventTime == -1 && tick == Long.MAX_VALUE) {
+                    return;
                 }
+                long idleFrom = clock;
+                advanceClock(nextEventTime == -1 || nextEventTime > tick ? tick : nextEventTime);
+                idleTicks += clock - idleFrom;
             }
+            publishSnapshot();
+        }
+    }
+
+    /**
+     * @param thiefCore The core that wants to run the process.
+     * @return A ready process along with its scheduling data, or null if there is none that may move.
+     * The policy chooses which process to give away, among the ones that are not pinned to this core.
+     */
+    Map.Entry<SimulatedProcess, SchedulerProcessData> takeReadyProcess(int thiefCore) {
+        synchronized (mutex) {
+            SimulatedProcess process = policy.steal(thiefCore);
+            if (process == null) {
+                return null;
+            }
+            // Cores keep their own clocks, so the data travels with ticks relative to the clock of the core
+            SchedulerProcessData data = processTable.export(process.getSlot(), clock);
+            load.decrementAndGet();
+            modificationCount++;
+            return Map.entry(process, data);
+        }
+    }
+
+    /**
+     * @param stolen A ready process taken from another core, along with its scheduling data.
+     * Used to move processes between cores that are driven in virtual time by the caller.
+     */
+    void adopt(Map.Entry<SimulatedProcess, SchedulerProcessData> stolen) {
+        synchronized (mutex) {
+            adoptProcess(stolen);
+        }
+    }
+
+    /**
+     * @param stolen A ready process taken from another core, along with its scheduling data.
+     * Must be called while holding the mutex.
+     */
+    private void adoptProcess(Map.Entry<SimulatedProcess, SchedulerProcessData> stolen) {
+        stolenCount++;
+        processTable.add(stolen.getKey(), stolen.getValue(), clock);
+        load.incrementAndGet();
+        modificationCount++;
+        policy.ready(stolen.getKey());
+    }
+
+    /**
+     * @return The number of processes this core took from other cores
+     */
+    long getStolenCount() {
+        synchronized (mutex) {
+            return stolenCount;
+        }
+    }
+
+    /**
+     * @return The number of processes waiting in the ready queues
+     */
+    int getReadyCount() {
+        synchronized (mutex) {
+            return policy.size();
         }
     }
 
@@ -157,7 +518,9 @@ public class ShortTermScheduler implements Runnable, ControlInterface, InterSche
     public void startSimulation() {
         synchronized (mutex) {
             running = true;
+            mutex.notifyAll();
         }
+        notifyLoadChanged();
     }
 
     @Override
@@ -171,43 +534,80 @@ public class ShortTermScheduler implements Runnable, ControlInterface, InterSche
     public void resumeSimulation() {
         synchronized (mutex) {
             running = true;
+            mutex.notifyAll();
         }
+        notifyLoadChanged();
     }
 
     @Override
     public void stopSimulation() {
         synchronized (mutex) {
             running = false;
+            eventQueue.clear();
             blockedQueue.clear();
-            ioBoundReadyQueue.clear();
-            cpuBoundReadyQueue.clear();
-            processDataMap.clear();
+            for (DeviceQueue device : devices) {
+                device.clear();
+            }
+            policy.clear();
+            processTable.clear();
+            load.set(0);
+            modificationCount++;
+            publishSnapshot();
+            mutex.notifyAll();
         }
+        notifyLoadChanged();
     }
 
+    /**
+     * Displays the latest published snapshot of the queues, without waiting for the scheduler.
+     */
     @Override
     public void displayProcessQueues() {
-        synchronized (mutex) {
-            if (notificationObserver != null) {
-                StringBuilder message = new StringBuilder();
-                message.append("Blocked queue:");
-                for (var process : blockedQueue) {
-                    message.append(" (").append(process.getPid()).append(", ").append(process.getName()).append(")");
-                }
-                message.append("\n");
-                message.append("IO-bound queue:");
-                for (var process : ioBoundReadyQueue) {
-                    message.append(" (").append(process.getPid()).append(", ").append(process.getName()).append(")");
-                }
-                message.append("\n");
-                message.append("CPU-bound queue:");
-                for (var process : cpuBoundReadyQueue) {
-                    message.append(" (").append(process.getPid()).append(", ").append(process.getName()).append(")");
-                }
-                message.append("\n");
-                notificationObserver.display(message.toString());
+        if (notificationObserver != null) {
+            QueueSnapshot snapshot = getQueueSnapshot();
+            notificationObserver.display("As of tick " + snapshot.getClock() + "\n" + snapshot.describeQueues());
+        }
+    }
+
+    /**
+     * @return The latest published snapshot of the queues.
+     * This never waits for the scheduler, so the snapshot may be a little behind: it also asks the scheduler
+     * to publish a new one, which it does by the end of its current tick.
+     */
+    public QueueSnapshot getQueueSnapshot() {
+        snapshotRequested = true;
+        if (waiting) {
+            // The scheduler is not using the mutex while it waits, so this does not hold up any dispatch
+            synchronized (mutex) {
+                mutex.notifyAll();
+            }
+        }
+        return queueSnapshot;
+    }
+
+    /**
+     * Publishes a new snapshot of the queues if a reader asked for one, if the scheduler runs in real time,
+     * or if the last one is far behind. Must be called while holding the mutex.
+     * Snapshots cost a copy of the queues, so a scheduler in virtual time does not take one every tick.
+     */
+    private void publishSnapshot() {
+        long behind = modificationCount - queueSnapshot.getVersion();
+        if (behind == 0 || !(snapshotRequested || realTimePacing || behind >= SNAPSHOT_INTERVAL)) {
+            return;
+        }
+        snapshotRequested = false;
+        int[] blockedSlots = blockedQueue.toArray();
+        List<SimulatedProcess> blocked = new ArrayList<>(blockedSlots.length);
+        for (int slot : blockedSlots) {
+            blocked.add(processTable.getProcess(slot));
+        }
+        for (DeviceQueue device : devices) {
+            for (int slot : device.waitingSlots()) {
+                blocked.add(processTable.getProcess(slot));
             }
         }
+        queueSnapshot = new QueueSnapshot(modificationCount, clock, blocked, policy.getReadyQueues(),
+                dispatchCount, idleTicks, stolenCount);
     }
 
     /**
@@ -217,8 +617,11 @@ public class ShortTermScheduler implements Runnable, ControlInterface, InterSche
     @Override
     public void addProcess(SimulatedProcess process) {
         synchronized (mutex) {
-            cpuBoundReadyQueue.add(process);
-            processDataMap.put(process, new SchedulerProcessData());
+            processTable.add(process, clock);
+            load.incrementAndGet();
+            modificationCount++;
+            scheduleEvent(clock, SimulationEvent.Type.ARRIVAL, process);
+            mutex.notifyAll();
         }
     }
 
@@ -228,24 +631,179 @@ public class ShortTermScheduler implements Runnable, ControlInterface, InterSche
      */
     @Override
     public int getProcessLoad() {
+        if (!running) {
+            return Integer.MAX_VALUE;
+        }
+        // Every process that was added and not finalized yet, including the ones that did not arrive yet
+        return load.get();
+    }
+
+    int getCore() {
+        return core;
+    }
+
+    /**
+     * @return A copy of the scheduling metrics collected so far
+     */
+    @Override
+    public SchedulingMetrics getMetrics() {
+        synchronized (mutex) {
+            SchedulingMetrics snapshot = metrics.snapshot(clock);
+            snapshot.setAgingCount(policy.getAgingCount());
+            snapshot.setTimeSlices(policy.getTimeSlices());
+            LogHistogram ioQueueWait = new LogHistogram();
+            for (DeviceQueue device : devices) {
+                ioQueueWait.add(device.getQueueWait());
+            }
+            snapshot.setIoQueueWait(ioQueueWait);
+            return snapshot;
+        }
+    }
+
+    /**
+     * @return One line per device with the requests it got, how busy it was and how long requests waited for it,
+     * or an empty string if the scheduler has no devices
+     */
+    public String describeDevices() {
+        synchronized (mutex) {
+            if (devices.isEmpty()) {
+                return "";
+            }
+            StringBuilder description = new StringBuilder(DeviceQueue.header());
+            for (DeviceQueue device : devices) {
+                description.append(device.describe(clock));
+            }
+            return description.toString();
+        }
+    }
+
+    /**
+     * @param out Where to write the state of the scheduler.
+     * @param programs Gives the number a program is written as.
+     * Writes everything the scheduler keeps, as of the end of its last tick: the process table, the ready set of the
+     * policy, the pending events, the blocked queue and the devices, the metrics and the clock.
+     * Processes are written by their slot, which they get back when {@link #readCheckpoint} restores them.
+     */
+    void writeCheckpoint(DataOutput out, ToIntFunction<Program> programs) throws IOException {
         synchronized (mutex) {
-            if (!running) {
-                return Integer.MAX_VALUE;
+            out.writeUTF(policy.getClass().getName());
+            out.writeInt(devices.size());
+            for (DeviceQueue device : devices) {
+                out.writeUTF(device.getDevice().toString());
             }
-            return blockedQueue.size() + cpuBoundReadyQueue.size() + ioBoundReadyQueue.size();
+            processTable.writeTo(out, programs, policy);
+            policy.writeState(out, SimulatedProcess::getSlot);
+            out.writeInt(eventQueue.size());
+            for (SimulationEvent event : eventQueue) {
+                out.writeLong(event.getTime());
+                out.writeByte(event.getType().ordinal());
+                out.writeInt(event.getProcess().getSlot());
+                out.writeLong(event.getSequence());
+            }
+            blockedQueue.writeTo(out);
+            for (DeviceQueue device : devices) {
+                device.writeTo(out);
+            }
+            metrics.writeTo(out);
+            out.writeLong(clock);
+            out.writeLong(nextEventSequence);
+            out.writeLong(modificationCount);
+            out.writeLong(dispatchCount);
+            out.writeLong(lastDispatchedPid);
+            out.writeLong(idleTicks);
+            out.writeLong(stolenCount);
+            out.writeBoolean(running);
         }
     }
 
     /**
-     * A class that stores data about the simulation of a process.
-     * It is used to check whether the process should be considered IO-bound or CPU-bound.
+     * @param in Where to read the state from.
+     * @param programs Gives back the program written as a number.
+     * Puts this scheduler, which must be new and have the same policy and devices as the one that wrote the state,
+     * where {@link #writeCheckpoint} left the other one.
      */
-    private static class SchedulerProcessData {
-        public int executeCount = 0;
-        public int blockCount = 0;
+    void readCheckpoint(DataInput in, IntFunction<Program> programs) throws IOException {
+        synchronized (mutex) {
+            if (clock != 0 || processTable.size() != 0) {
+                throw new IllegalStateException("Only a new scheduler can be restored from a checkpoint");
+            }
+            String policyName = in.readUTF();
+            if (!policyName.equals(policy.getClass().getName())) {
+                throw new IOException("The checkpoint was taken with " + policyName + ", not " + policy.getClass().getName());
+            }
+            List<String> deviceNames = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                deviceNames.add(in.readUTF());
+            }
+            List<String> ownDeviceNames = new ArrayList<>();
+            for (DeviceQueue device : devices) {
+                ownDeviceNames.add(device.getDevice().toString());
+            }
+            if (!deviceNames.equals(ownDeviceNames)) {
+                throw new IOException("The checkpoint was taken with the devices " + deviceNames + ", not " + ownDeviceNames);
+            }
+            processTable.readFrom(in, programs, policy);
+            policy.readState(in, processTable::getProcess);
+            SimulationEvent.Type[] types = SimulationEvent.Type.values();
+            for (int i = in.readInt(); i > 0; i--) {
+                long time = in.readLong();
+                int type = in.readUnsignedByte();
+                if (type >= types.length) {
+                    throw new IOException("Corrupt event type " + type);
+                }
+                eventQueue.add(new SimulationEvent(time, types[type], processTable.getProcess(in.readInt()), in.readLong()));
+            }
+            blockedQueue.readFrom(in);
+            for (DeviceQueue device : devices) {
+                device.readFrom(in);
+            }
+            metrics.readFrom(in);
+            clock = in.readLong();
+            nextEventSequence = in.readLong();
+            modificationCount = in.readLong() + 1;
+            dispatchCount = in.readLong();
+            lastDispatchedPid = in.readLong();
+            idleTicks = in.readLong();
+            stolenCount = in.readLong();
+            running = in.readBoolean();
+            load.set(processTable.size());
+            publishSnapshot();
+            mutex.notifyAll();
+        }
+    }
 
-        public boolean isIoBound() {
-            return blockCount > executeCount;
+    /**
+     * @return The current tick of the virtual clock
+     */
+    @Override
+    public long getClock() {
+        synchronized (mutex) {
+            return clock;
         }
     }
+
+    /**
+     * Lets an idle core take ready processes from the other cores.
+     */
+    interface WorkSource {
+        /**
+         * @param thief The core that has nothing to run.
+         * @return A ready process along with its scheduling data, or null if there is nothing to steal
+         */
+        Map.Entry<SimulatedProcess, SchedulerProcessData> steal(ShortTermScheduler thief);
+    }
+
+    /**
+     * The scheduling data of a process that moves from one core to another, with ticks relative to the clock of the core it left.
+     * While a process stays on a core, its data lives in that core's {@link ProcessTable}.
+     */
+    static class SchedulerProcessData {
+        public long arrivalTick = 0;
+        public long firstRunTick = -1;
+        public long readySince = 0;
+        public long readyWaitTicks = 0;
+        public long longestWaitTicks = 0;
+        public long blockedSince = 0;
+        public long blockedTicks = 0;
+    }
 }
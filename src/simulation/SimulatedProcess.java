@@ -1,7 +1,14 @@
 package simulation;
 
-import program.BlockInstruction;
+import policy.SchedulingPolicy;
 import program.Program;
+import program.ProgramCursor;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
 
 /**
  * Implements a process being simulated in the program.
@@ -13,15 +20,83 @@ import program.Program;
  * and implements the logic for executing an instruction.
  */
 public class SimulatedProcess {
+    public static final int NO_AFFINITY = -1;
+    public static final int DEFAULT_PRIORITY = 0;
     private final Program program;
     private final long processId;
-    private int currentInstruction;
+    private final int priority;
+    private final int affinity;
+    private final ProgramCursor currentInstruction;
     private int blockTime;
+    private String blockDevice;
+    private Object schedulingState;
+    private int slot;
     SimulatedProcess(Program program, long processId) {
+        this(program, processId, DEFAULT_PRIORITY, NO_AFFINITY);
+    }
+
+    /**
+     * @param priority How urgent the process is, higher running first under the priority policy
+     * @param affinity The index of the CPU the process is pinned to, or NO_AFFINITY to let it run on any CPU
+     */
+    SimulatedProcess(Program program, long processId, int priority, int affinity) {
+        this(program, processId, priority, affinity, program.cursor());
+    }
+
+    private SimulatedProcess(Program program, long processId, int priority, int affinity, ProgramCursor currentInstruction) {
         this.program = program;
-        currentInstruction = 0;
+        this.currentInstruction = currentInstruction;
         this.processId = processId;
+        this.priority = priority;
+        this.affinity = affinity;
         blockTime = 0;
+        blockDevice = null;
+        schedulingState = null;
+        slot = -1;
+    }
+
+    /**
+     * @param out Where to write the process.
+     * @param programs Gives the number its program is written as.
+     * @param policy The policy that keeps the scheduling state of the process, if the process arrived already.
+     * Writes the position of the process in its program, its pending block and its scheduling state.
+     * The slot is not written.
+     */
+    void writeTo(DataOutput out, ToIntFunction<Program> programs, SchedulingPolicy policy) throws IOException {
+        out.writeInt(programs.applyAsInt(program));
+        out.writeLong(processId);
+        out.writeInt(priority);
+        out.writeInt(affinity);
+        currentInstruction.writeTo(out);
+        out.writeInt(blockTime);
+        out.writeBoolean(blockDevice != null);
+        if (blockDevice != null) {
+            out.writeUTF(blockDevice);
+        }
+        out.writeBoolean(schedulingState != null);
+        if (schedulingState != null) {
+            policy.writeProcessState(out, this);
+        }
+    }
+
+    /**
+     * @param in Where to read the process from.
+     * @param programs Gives back the program written as a number.
+     * @param policy The policy that takes the scheduling state of the process.
+     * @return A process written by {@link #writeTo}
+     */
+    static SimulatedProcess readFrom(DataInput in, IntFunction<Program> programs, SchedulingPolicy policy) throws IOException {
+        Program program = programs.apply(in.readInt());
+        long processId = in.readLong();
+        int priority = in.readInt();
+        int affinity = in.readInt();
+        SimulatedProcess process = new SimulatedProcess(program, processId, priority, affinity, program.readCursor(in));
+        process.blockTime = in.readInt();
+        process.blockDevice = in.readBoolean() ? in.readUTF() : null;
+        if (in.readBoolean()) {
+            policy.readProcessState(in, process);
+        }
+        return process;
     }
 
     public String getName() {
@@ -32,26 +107,93 @@ public class SimulatedProcess {
         return processId;
     }
 
-    public void runInstruction(int quantum) {
-        System.out.printf("[%d] %s: Executing\n", getPid(), getName());
-        try {
-            Thread.sleep(quantum);
-        } catch (Exception e) {
-            System.err.println("Eu quero dormir!");
-        }
-        if (program.getBody().get(currentInstruction) instanceof BlockInstruction blockInstruction) {
-            System.out.printf("[%d] %s: Blocking for %d\n", getPid(), getName(), blockInstruction.getDuration());
-            blockTime = blockInstruction.getDuration();
+    /**
+     * @return How urgent the process is, as given when it was submitted
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return The index of the CPU this process is pinned to, or NO_AFFINITY if it can run on any CPU
+     */
+    public int getAffinity() {
+        return affinity;
+    }
+
+    /**
+     * @return The state the scheduling policy keeps about this process, which the process itself does not look at
+     */
+    public Object getSchedulingState() {
+        return schedulingState;
+    }
+
+    public void setSchedulingState(Object schedulingState) {
+        this.schedulingState = schedulingState;
+    }
+
+    /**
+     * @return The slot of the process in the process table of the scheduler that holds it, or -1 if none does
+     */
+    int getSlot() {
+        return slot;
+    }
+
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    /**
+     * Executes the current instruction.
+     * This does not take any wall time: pacing the simulation is up to the scheduler.
+     * @return Whether the instruction was a block instruction
+     */
+    public boolean runInstruction() {
+        boolean block = currentInstruction.isBlock();
+        if (block) {
+            blockTime = currentInstruction.getBlockDuration();
+            blockDevice = currentInstruction.getBlockDevice();
         }
-        currentInstruction++;
+        currentInstruction.advance();
+        return block;
+    }
+    /**
+     * @return The number of execute instructions in a row starting at the current instruction
+     */
+    public int getExecuteRunLength() {
+        return currentInstruction.getExecuteRunLength();
+    }
+
+    /**
+     * @param count The number of execute instructions to run, at most {@link #getExecuteRunLength()}.
+     * Runs several execute instructions at once, as if {@link #runInstruction()} was called that many times.
+     */
+    public void runExecutes(int count) {
+        currentInstruction.skipExecutes(count);
+    }
+    public int getRemainingInstructions() {
+        return program.size() - currentInstruction.getPosition();
     }
     public boolean isDone() {
-        return currentInstruction >= program.getBody().size();
+        return currentInstruction.isDone();
     }
     public boolean isBlocked() {
         return blockTime > 0;
     }
-    public void decrementBlockTime() {
-        blockTime--;
+    /**
+     * @return The number of ticks the process stays blocked for, counting the tick of the block instruction itself
+     */
+    public int getBlockTime() {
+        return blockTime;
+    }
+    /**
+     * @return The name of the device the process is blocked on, or null if it waits for no device
+     */
+    public String getBlockDevice() {
+        return blockDevice;
+    }
+    public void unblock() {
+        blockTime = 0;
+        blockDevice = null;
     }
 }
@@ -0,0 +1,59 @@
+package simulation;
+
+/**
+ * An event in the short term scheduler's virtual timeline.
+ * Events are ordered by the tick at which they happen, then by type,
+ * and finally by the order in which they were scheduled.
+ * Block completions are not events: they are kept in the {@link BlockedQueue}.
+ */
+class SimulationEvent implements Comparable<SimulationEvent> {
+    /**
+     * The kinds of events the scheduler handles.
+     * The declaration order is the order in which events of the same tick are handled.
+     */
+    enum Type {
+        QUANTUM_EXPIRY, ARRIVAL
+    }
+
+    private final long time;
+    private final Type type;
+    private final SimulatedProcess process;
+    private final long sequence;
+
+    SimulationEvent(long time, Type type, SimulatedProcess process, long sequence) {
+        this.time = time;
+        this.type = type;
+        this.process = process;
+        this.sequence = sequence;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public SimulatedProcess getProcess() {
+        return process;
+    }
+
+    /**
+     * @return The order in which the event was scheduled, among the events of its scheduler
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public int compareTo(SimulationEvent other) {
+        if (time != other.time) {
+            return Long.compare(time, other.time);
+        }
+        if (type != other.type) {
+            return type.compareTo(other.type);
+        }
+        return Long.compare(sequence, other.sequence);
+    }
+}
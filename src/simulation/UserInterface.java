@@ -29,7 +29,10 @@ public class UserInterface implements Runnable, NotificationInterface {
         JButton stopSimulationBtn = new JButton("Stop Simulation");
         JButton displayProcessQueuesBtn = new JButton("Display Process Queues");
         JButton displaySubmissionQueueBtn = new JButton("Display Submission Queue");
+        JButton displayMetricsBtn = new JButton("Display Metrics");
         JTextField jobSubmissionField = new JTextField();
+        JSpinner prioritySpinner = new JSpinner(new SpinnerNumberModel(SimulatedProcess.DEFAULT_PRIORITY, -99, 99, 1));
+        prioritySpinner.setToolTipText("Priority of the submitted jobs, higher runs first under the priority policy");
         JButton submitJobBtn = new JButton("Submit Job");
         startSimulationBtn.addActionListener(e -> {
             System.out.println("Starting simulation");
@@ -46,6 +49,7 @@ public class UserInterface implements Runnable, NotificationInterface {
         stopSimulationBtn.addActionListener(e -> {
             System.out.println("Stopping simulation");
             controlInterface.stopSimulation();
+            System.out.print(controlInterface.getMetrics());
         });
         displayProcessQueuesBtn.addActionListener(e -> {
             controlInterface.displayProcessQueues();
@@ -53,9 +57,18 @@ public class UserInterface implements Runnable, NotificationInterface {
         displaySubmissionQueueBtn.addActionListener(e -> {
             submissionInterface.displaySubmissionQueue();
         });
+        displayMetricsBtn.addActionListener(e -> {
+            display(controlInterface.getMetrics().toString());
+        });
         submitJobBtn.addActionListener(e -> {
-            String programName = jobSubmissionField.getText();
-            submissionInterface.submitJob(programName);
+            // Loading happens in the background, so that large batches do not freeze the interface
+            String pattern = jobSubmissionField.getText();
+            int priority = (Integer) prioritySpinner.getValue();
+            submissionInterface.submitMatching(pattern, priority).thenAccept(batch -> {
+                if (batch.size() > 1) {
+                    System.out.printf("Submitted %d of %d jobs from '%s'\n", batch.getSubmittedCount(), batch.size(), pattern);
+                }
+            });
         });
         startSimulationBtn.setBounds(10, 10, 610, 30);
         suspendSimulationBtn.setBounds(10, 50, 610, 30);
@@ -63,8 +76,10 @@ public class UserInterface implements Runnable, NotificationInterface {
         stopSimulationBtn.setBounds(10, 130, 610, 30);
         displayProcessQueuesBtn.setBounds(10, 170, 610, 30);
         displaySubmissionQueueBtn.setBounds(10, 210, 610, 30);
-        jobSubmissionField.setBounds(10, 250, 610, 30);
+        jobSubmissionField.setBounds(10, 250, 500, 30);
+        prioritySpinner.setBounds(520, 250, 100, 30);
         submitJobBtn.setBounds(10, 290, 610, 30);
+        displayMetricsBtn.setBounds(10, 330, 610, 30);
         jframe.add(startSimulationBtn);
         jframe.add(suspendSimulationBtn);
         jframe.add(resumeSimulationBtn);
@@ -72,7 +87,9 @@ public class UserInterface implements Runnable, NotificationInterface {
         jframe.add(displayProcessQueuesBtn);
         jframe.add(displaySubmissionQueueBtn);
         jframe.add(jobSubmissionField);
+        jframe.add(prioritySpinner);
         jframe.add(submitJobBtn);
+        jframe.add(displayMetricsBtn);
         jframe.setSize(640, 480);
         jframe.setLayout(null);
         jframe.setResizable(false);
@@ -0,0 +1,16 @@
+package trace;
+
+/**
+ * Prints events to standard output as they happen, the way the simulator always logged them.
+ */
+public class ConsoleTracer implements EventTracer {
+    @Override
+    public void record(long tick, long pid, String name, TraceEventType type, int arg) {
+        switch (type) {
+            case EXECUTE -> System.out.printf("[%d] %s: Executing\n", pid, name);
+            case BLOCK -> System.out.printf("[%d] %s: Blocking for %d\n", pid, name, arg);
+            case FINISH -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package trace;
+
+/**
+ * Receives the events of a simulation as they happen.
+ * Tracers are called on the scheduler's hot path, so recording an event should be cheap,
+ * and tracers shared between cores must accept events from several threads.
+ */
+public interface EventTracer {
+    /**
+     * A tracer that drops every event, for runs that only care about the metrics
+     */
+    EventTracer NONE = (tick, pid, name, type, arg) -> {
+    };
+
+    /**
+     * @param tick The tick of the scheduler's clock at which the event happened
+     * @param pid The pid of the process
+     * @param name The name of the process, for tracers that show it
+     * @param type What happened
+     * @param arg An argument whose meaning depends on the type, or 0
+     */
+    void record(long tick, long pid, String name, TraceEventType type, int arg);
+
+    /**
+     * Flushes and releases whatever the tracer writes to.
+     */
+    default void close() {
+    }
+}
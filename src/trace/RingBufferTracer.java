@@ -0,0 +1,134 @@
+package trace;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records events into a preallocated ring buffer, and writes them to a binary trace file on a background thread.
+ * Recording claims a slot with one atomic increment and fills in primitive arrays, so it never formats,
+ * allocates or takes a lock, and any number of threads can record at once.
+ * If the writer falls a whole buffer behind, recording waits for it instead of dropping events.
+ */
+public class RingBufferTracer implements EventTracer {
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int WRITE_BUFFER_RECORDS = 4096;
+    private static final long IDLE_WAIT_NANOS = 100_000;
+
+    private final int mask;
+    private final long[] ticks;
+    private final long[] pids;
+    private final int[] types;
+    private final int[] args;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed = 0;
+    private volatile boolean closing = false;
+    private final FileChannel channel;
+    private final ByteBuffer writeBuffer;
+    private final Thread writer;
+
+    public RingBufferTracer(Path file) throws IOException {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param file The trace file, which is overwritten
+     * @param capacity The number of records the ring buffer holds, rounded up to a power of two
+     */
+    public RingBufferTracer(Path file, int capacity) throws IOException {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        mask = size - 1;
+        ticks = new long[size];
+        pids = new long[size];
+        types = new int[size];
+        args = new int[size];
+        published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_RECORDS * TraceFormat.RECORD_SIZE);
+        writeBuffer.putLong(TraceFormat.MAGIC).putInt(TraceFormat.VERSION).putInt(TraceFormat.RECORD_SIZE);
+        writer = new Thread(this::drain, "trace-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void record(long tick, long pid, String name, TraceEventType type, int arg) {
+        long sequence = claimed.getAndIncrement();
+        if (sequence - consumed > mask) {
+            LockSupport.unpark(writer);
+            while (sequence - consumed > mask) {
+                Thread.yield();
+            }
+        }
+        int slot = (int) (sequence & mask);
+        ticks[slot] = tick;
+        pids[slot] = pid;
+        types[slot] = type.ordinal();
+        args[slot] = arg;
+        published.lazySet(slot, sequence);
+    }
+
+    /**
+     * Waits for the writer to write every recorded event, and closes the file.
+     * Nothing may be recorded after this is called.
+     */
+    @Override
+    public void close() {
+        closing = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The writer loop: copies published records, in order, into the write buffer, and flushes it when full or idle.
+     */
+    private void drain() {
+        try {
+            long next = consumed;
+            while (true) {
+                boolean wasClosing = closing;
+                int slot = (int) (next & mask);
+                if (published.get(slot) == next) {
+                    if (writeBuffer.remaining() < TraceFormat.RECORD_SIZE) {
+                        flush();
+                    }
+                    writeBuffer.putLong(ticks[slot]).putLong(pids[slot]).putInt(types[slot]).putInt(args[slot]);
+                    next++;
+                    consumed = next;
+                    continue;
+                }
+                flush();
+                if (wasClosing && claimed.get() == next) {
+                    break;
+                }
+                LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+            }
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            System.err.printf("Failed to write trace\nException: '%s'\n", e.getMessage());
+        }
+    }
+
+    private void flush() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+}
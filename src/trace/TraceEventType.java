@@ -0,0 +1,20 @@
+package trace;
+
+/**
+ * The kinds of events in a trace.
+ * The ordinal is what gets written to trace files, so new types must be added at the end.
+ */
+public enum TraceEventType {
+    /**
+     * A process ran an instruction
+     */
+    EXECUTE,
+    /**
+     * The instruction a process ran was a block instruction. The argument is the block duration.
+     */
+    BLOCK,
+    /**
+     * A process finished
+     */
+    FINISH
+}
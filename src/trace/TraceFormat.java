@@ -0,0 +1,16 @@
+package trace;
+
+/**
+ * The layout of binary trace files.
+ * A file is a header (the magic number, the format version and the record size, all big-endian)
+ * followed by fixed-size records: the tick (long), the pid (long), the event type ordinal (int) and the argument (int).
+ */
+final class TraceFormat {
+    static final long MAGIC = 0x4553435452414345L; // "ESCTRACE"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 24;
+
+    private TraceFormat() {
+    }
+}
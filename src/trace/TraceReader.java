@@ -0,0 +1,69 @@
+package trace;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Renders a binary trace file as text, one event per line.
+ */
+public class TraceReader {
+    private static final int READ_BUFFER_RECORDS = 4096;
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: TraceReader <trace-file>");
+            System.exit(0);
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(args[0]), StandardOpenOption.READ)) {
+            print(channel);
+        } catch (IOException e) {
+            System.err.printf("Failed to read trace '%s'\nException: '%s'\n", args[0], e.getMessage());
+        }
+    }
+
+    private static void print(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_RECORDS * TraceFormat.RECORD_SIZE);
+        readFully(channel, buffer, TraceFormat.HEADER_SIZE);
+        if (buffer.getLong() != TraceFormat.MAGIC || buffer.getInt() != TraceFormat.VERSION
+                || buffer.getInt() != TraceFormat.RECORD_SIZE) {
+            throw new IOException("Not a trace file, or an unsupported version");
+        }
+        TraceEventType[] types = TraceEventType.values();
+        StringBuilder out = new StringBuilder();
+        buffer.clear();
+        while (channel.read(buffer) > 0 || buffer.position() > 0) {
+            buffer.flip();
+            if (buffer.remaining() < TraceFormat.RECORD_SIZE) {
+                break;
+            }
+            while (buffer.remaining() >= TraceFormat.RECORD_SIZE) {
+                long tick = buffer.getLong();
+                long pid = buffer.getLong();
+                int type = buffer.getInt();
+                int arg = buffer.getInt();
+                out.append(tick).append(' ').append(pid).append(' ')
+                        .append(type < types.length ? types[type].name() : "UNKNOWN(" + type + ")");
+                if (arg != 0) {
+                    out.append(' ').append(arg);
+                }
+                out.append('\n');
+            }
+            System.out.print(out);
+            out.setLength(0);
+            buffer.compact();
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, int size) throws IOException {
+        buffer.limit(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Trace file is truncated");
+            }
+        }
+        buffer.flip();
+    }
+}
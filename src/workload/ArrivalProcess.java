@@ -0,0 +1,40 @@
+package workload;
+
+import java.util.SplittableRandom;
+
+/**
+ * Decides how many ticks pass between one submission and the next.
+ */
+public interface ArrivalProcess {
+    /**
+     * @param rng The generator to draw from.
+     * @return The ticks from the previous submission to the next one, which may be 0
+     */
+    long nextGap(SplittableRandom rng);
+
+    /**
+     * @param meanGap The mean number of ticks between submissions, or 0 to submit everything at the first tick.
+     * @return Submissions that arrive independently of each other, at a steady rate
+     */
+    static ArrivalProcess poisson(double meanGap) {
+        return rng -> exponentialGap(meanGap, rng);
+    }
+
+    /**
+     * @param meanBurstSize The mean number of submissions in a burst.
+     * @param meanGapInBurst The mean number of ticks between submissions of the same burst.
+     * @param meanGapBetweenBursts The mean number of ticks between the end of a burst and the start of the next one.
+     * @return Submissions that arrive in bursts, with quiet periods in between.
+     * The size of each burst is geometric, and the gaps are exponential.
+     */
+    static ArrivalProcess bursty(double meanBurstSize, double meanGapInBurst, double meanGapBetweenBursts) {
+        double burstEndProbability = 1 / Math.max(1, meanBurstSize);
+        return rng -> rng.nextDouble() < burstEndProbability
+                ? exponentialGap(meanGapBetweenBursts, rng)
+                : exponentialGap(meanGapInBurst, rng);
+    }
+
+    private static long exponentialGap(double mean, SplittableRandom rng) {
+        return Math.round(-mean * Math.log(1 - rng.nextDouble()));
+    }
+}
@@ -0,0 +1,63 @@
+package workload;
+
+import java.util.SplittableRandom;
+
+/**
+ * A distribution of positive durations, in ticks, used to generate synthetic workloads.
+ * Samples are rounded to the nearest tick and are never less than one.
+ */
+public interface Distribution {
+    /**
+     * @param rng The generator to draw from.
+     * @return A sample, rounded to at least one tick
+     */
+    long sample(SplittableRandom rng);
+
+    /**
+     * @param mean The mean of the samples.
+     * @return An exponential distribution, e.g. the lengths of CPU bursts of interactive jobs
+     */
+    static Distribution exponential(double mean) {
+        return rng -> round(-mean * Math.log(1 - rng.nextDouble()));
+    }
+
+    /**
+     * @param scale The smallest value.
+     * @param shape How heavy the tail is, with smaller shapes giving more long samples. The mean is infinite at or below 1.
+     * @return A Pareto distribution, e.g. the lengths of jobs on a shared machine
+     */
+    static Distribution pareto(double scale, double shape) {
+        return rng -> round(scale / Math.pow(1 - rng.nextDouble(), 1 / shape));
+    }
+
+    /**
+     * @param low The common value.
+     * @param high The rare value.
+     * @param highProbability The probability of the rare value.
+     * @return A distribution of two values, e.g. I/O that either hits a cache or goes to disk
+     */
+    static Distribution bimodal(double low, double high, double highProbability) {
+        return rng -> round(rng.nextDouble() < highProbability ? high : low);
+    }
+
+    /**
+     * @param low The smallest value.
+     * @param high The largest value.
+     * @return A uniform distribution, like the block times of {@link program.RandomProgramLoader}
+     */
+    static Distribution uniform(double low, double high) {
+        return rng -> round(low + rng.nextDouble() * (high - low));
+    }
+
+    static Distribution constant(double value) {
+        long sample = round(value);
+        return rng -> sample;
+    }
+
+    private static long round(double value) {
+        if (value >= Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(1, Math.round(value));
+    }
+}
@@ -0,0 +1,109 @@
+package workload;
+
+import program.Program;
+import simulation.SimulatedProcess;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Submissions that are already in memory, each a program along with its tick, priority and affinity.
+ * Programs are immutable, so the same submissions can be replayed any number of times, at once, through {@link #rewound()}.
+ */
+public class ProgramListWorkload implements WorkloadSource {
+    private final List<Program> programs;
+    private final long[] ticks;
+    private final int[] priorities;
+    private final int[] affinities;
+    private int next;
+
+    /**
+     * @param programs The programs, all submitted at the first tick, in order
+     */
+    public ProgramListWorkload(List<Program> programs) {
+        this(programs, new long[programs.size()], new int[programs.size()], noAffinities(programs.size()));
+    }
+
+    private ProgramListWorkload(List<Program> programs, long[] ticks, int[] priorities, int[] affinities) {
+        this.programs = programs;
+        this.ticks = ticks;
+        this.priorities = priorities;
+        this.affinities = affinities;
+        next = 0;
+    }
+
+    /**
+     * @param source The submissions to keep in memory, which are all read.
+     * @return A workload with the same submissions
+     */
+    public static ProgramListWorkload readAll(WorkloadSource source) throws IOException {
+        List<Program> programs = new ArrayList<>();
+        long[] ticks = new long[16];
+        int[] priorities = new int[16];
+        int[] affinities = new int[16];
+        while (source.next()) {
+            if (programs.size() == ticks.length) {
+                ticks = Arrays.copyOf(ticks, ticks.length * 2);
+                priorities = Arrays.copyOf(priorities, priorities.length * 2);
+                affinities = Arrays.copyOf(affinities, affinities.length * 2);
+            }
+            ticks[programs.size()] = source.getTick();
+            priorities[programs.size()] = source.getPriority();
+            affinities[programs.size()] = source.getAffinity();
+            programs.add(source.getProgram());
+        }
+        return new ProgramListWorkload(List.copyOf(programs), Arrays.copyOf(ticks, programs.size()),
+                Arrays.copyOf(priorities, programs.size()), Arrays.copyOf(affinities, programs.size()));
+    }
+
+    private static int[] noAffinities(int count) {
+        int[] affinities = new int[count];
+        Arrays.fill(affinities, SimulatedProcess.NO_AFFINITY);
+        return affinities;
+    }
+
+    /**
+     * @return A new workload with the same submissions, from the first one
+     */
+    public ProgramListWorkload rewound() {
+        return new ProgramListWorkload(programs, ticks, priorities, affinities);
+    }
+
+    /**
+     * @return The number of submissions
+     */
+    public int size() {
+        return programs.size();
+    }
+
+    @Override
+    public boolean next() {
+        if (next == programs.size()) {
+            return false;
+        }
+        next++;
+        return true;
+    }
+
+    @Override
+    public long getTick() {
+        return ticks[next - 1];
+    }
+
+    @Override
+    public int getPriority() {
+        return priorities[next - 1];
+    }
+
+    @Override
+    public int getAffinity() {
+        return affinities[next - 1];
+    }
+
+    @Override
+    public Program getProgram() {
+        return programs.get(next - 1);
+    }
+}
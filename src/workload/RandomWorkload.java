@@ -0,0 +1,50 @@
+package workload;
+
+import program.Program;
+import program.RandomProgramLoader;
+
+/**
+ * A fixed number of random programs, all submitted at the first tick.
+ * The programs come from a {@link RandomProgramLoader}, so the same seed always gives the same workload.
+ */
+public class RandomWorkload implements WorkloadSource {
+    private final RandomProgramLoader loader;
+    private final String jobName;
+    private final int jobCount;
+    private int submitted;
+    private Program program;
+
+    /**
+     * @param seed The master seed of the programs
+     * @param jobCount The number of programs
+     * @param jobName The name every program is generated from, like "CPU200", "IO50" or "100"
+     */
+    public RandomWorkload(long seed, int jobCount, String jobName) {
+        loader = new RandomProgramLoader(seed);
+        this.jobName = jobName;
+        this.jobCount = jobCount;
+        submitted = 0;
+        program = null;
+    }
+
+    @Override
+    public boolean next() {
+        if (submitted == jobCount) {
+            program = null;
+            return false;
+        }
+        submitted++;
+        program = loader.loadProgram(jobName);
+        return true;
+    }
+
+    @Override
+    public long getTick() {
+        return 0;
+    }
+
+    @Override
+    public Program getProgram() {
+        return program;
+    }
+}
@@ -0,0 +1,72 @@
+package workload;
+
+import program.Program;
+import workload.WorkloadSpec.JobClass;
+
+import java.util.SplittableRandom;
+
+/**
+ * Submissions generated from a {@link WorkloadSpec}, one at a time, as they are read.
+ * Nothing is kept once the next submission is generated, so any number of jobs can be streamed in constant memory.
+ * Every job is generated from its own generator, split off the master generator, so the same seed always gives the same workload.
+ */
+public class SyntheticWorkload implements WorkloadSource {
+    private final WorkloadSpec spec;
+    private final SplittableRandom master;
+    private final long jobCount;
+    private long submitted;
+    private long tick;
+    private JobClass jobClass;
+    private Program program;
+
+    /**
+     * @param spec The arrivals and the mix of jobs.
+     * @param seed The master seed.
+     * @param jobCount The number of jobs, or Long.MAX_VALUE for no limit.
+     */
+    public SyntheticWorkload(WorkloadSpec spec, long seed, long jobCount) {
+        this.spec = spec;
+        master = new SplittableRandom(seed);
+        this.jobCount = jobCount;
+        submitted = 0;
+        tick = 0;
+        jobClass = null;
+        program = null;
+    }
+
+    @Override
+    public boolean next() {
+        if (submitted == jobCount) {
+            program = null;
+            return false;
+        }
+        if (submitted > 0) {
+            tick += spec.getArrivals().nextGap(master);
+        }
+        submitted++;
+        SplittableRandom rng = master.split();
+        jobClass = spec.pickJobClass(rng);
+        program = jobClass.generate(rng);
+        return true;
+    }
+
+    @Override
+    public long getTick() {
+        return tick;
+    }
+
+    @Override
+    public int getPriority() {
+        return jobClass.getPriority();
+    }
+
+    @Override
+    public int getAffinity() {
+        return jobClass.getAffinity();
+    }
+
+    @Override
+    public Program getProgram() {
+        return program;
+    }
+}
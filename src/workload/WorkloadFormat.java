@@ -0,0 +1,21 @@
+package workload;
+
+/**
+ * The layout of workload files.
+ * A file is a header (the magic number and the format version) followed by one entry per submission, in order:
+ * the tick the program was submitted at (long), its priority (int), its affinity (int), then the program as written by
+ * {@link program.Program#writeTo}.
+ * Files of the first version have no priority, and their programs are read back at the default priority.
+ * Files before the fourth version have no affinity, and their programs are read back pinned to no CPU.
+ * Programs in files before the third version have no device table, since their blocks wait for no device.
+ */
+final class WorkloadFormat {
+    static final long MAGIC = 0x4553435748524B4CL; // "ESCWORKL"
+    static final int VERSION = 4;
+    static final int FIRST_VERSION_WITH_PRIORITY = 2;
+    static final int FIRST_VERSION_WITH_DEVICES = 3;
+    static final int FIRST_VERSION_WITH_AFFINITY = 4;
+
+    private WorkloadFormat() {
+    }
+}
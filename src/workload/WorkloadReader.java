@@ -0,0 +1,97 @@
+package workload;
+
+import program.Program;
+import simulation.SimulatedProcess;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads the submissions of a workload file back, one at a time.
+ */
+public class WorkloadReader implements WorkloadSource {
+    private final DataInputStream in;
+    private final boolean hasPriorities;
+    private final boolean hasDevices;
+    private final boolean hasAffinities;
+    private long tick;
+    private int priority;
+    private int affinity;
+    private Program program;
+
+    /**
+     * @param file A workload file written by a {@link WorkloadWriter}
+     */
+    public WorkloadReader(Path file) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        int version = in.readLong() == WorkloadFormat.MAGIC ? in.readInt() : -1;
+        if (version < 1 || version > WorkloadFormat.VERSION) {
+            in.close();
+            throw new IOException("Not a workload file, or an unsupported version");
+        }
+        hasPriorities = version >= WorkloadFormat.FIRST_VERSION_WITH_PRIORITY;
+        hasDevices = version >= WorkloadFormat.FIRST_VERSION_WITH_DEVICES;
+        hasAffinities = version >= WorkloadFormat.FIRST_VERSION_WITH_AFFINITY;
+        priority = SimulatedProcess.DEFAULT_PRIORITY;
+        affinity = SimulatedProcess.NO_AFFINITY;
+    }
+
+    /**
+     * @param file Any file
+     * @return Whether the file starts like a workload file
+     */
+    static boolean isWorkloadFile(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return in.readLong() == WorkloadFormat.MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        try {
+            tick = in.readLong();
+        } catch (EOFException e) {
+            program = null;
+            return false;
+        }
+        if (hasPriorities) {
+            priority = in.readInt();
+        }
+        if (hasAffinities) {
+            affinity = in.readInt();
+        }
+        program = Program.readFrom(in, hasDevices);
+        return true;
+    }
+
+    @Override
+    public long getTick() {
+        return tick;
+    }
+
+    @Override
+    public int getPriority() {
+        return priority;
+    }
+
+    @Override
+    public int getAffinity() {
+        return affinity;
+    }
+
+    @Override
+    public Program getProgram() {
+        return program;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
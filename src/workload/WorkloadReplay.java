@@ -0,0 +1,159 @@
+package workload;
+
+import interfaces.ControlInterface;
+import interfaces.InterSchedulerInterface;
+import interfaces.VirtualTimeInterface;
+import policy.SchedulingPolicy;
+import program.Program;
+import simulation.Checkpoint;
+import simulation.IoDevice;
+import simulation.LongTermScheduler;
+import simulation.ShortTermScheduler;
+import trace.EventTracer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Replays a recorded workload through the long term scheduler, in virtual time, on the calling thread.
+ * Every program is submitted at the tick it was recorded at, and since nothing runs on another thread,
+ * replaying the same workload with the same scheduler settings always gives the same metrics.
+ * A replay can save a checkpoint at some tick, and a later replay of the same workload can resume from it.
+ */
+public class WorkloadReplay {
+    /**
+     * The system property asking for a checkpoint, as "tick:file"
+     */
+    public static final String CHECKPOINT_PROPERTY = "escalonador.checkpoint";
+    /**
+     * The system property naming the checkpoint to resume from
+     */
+    public static final String RESUME_PROPERTY = "escalonador.resume";
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: WorkloadReplay <workload-file> <quantum> <max-load> <two-queue|mlfq|cfs|srtf|priority|adaptive|round-robin>");
+            System.exit(0);
+        }
+        int quantum = Integer.parseInt(args[1]);
+        int maxLoad = Integer.parseInt(args[2]);
+        String policy = args.length > 3 ? args[3] : "two-queue";
+        ShortTermScheduler shortTermScheduler = new ShortTermScheduler(quantum, false, SchedulingPolicy.create(policy));
+        shortTermScheduler.setTracer(EventTracer.NONE);
+        for (IoDevice device : IoDevice.configured()) {
+            shortTermScheduler.addDevice(device);
+        }
+        String checkpoint = System.getProperty(CHECKPOINT_PROPERTY);
+        String resume = System.getProperty(RESUME_PROPERTY);
+        long checkpointTick = -1;
+        Path checkpointFile = null;
+        if (checkpoint != null) {
+            String[] parts = checkpoint.split(":", 2);
+            if (parts.length < 2) {
+                throw new IllegalArgumentException("Expected tick:file, got '" + checkpoint + "'");
+            }
+            checkpointTick = Long.parseLong(parts[0]);
+            checkpointFile = Paths.get(parts[1]);
+        }
+        try (WorkloadReader reader = new WorkloadReader(Paths.get(args[0]))) {
+            replay(reader, shortTermScheduler, maxLoad, resume == null ? null : Paths.get(resume), checkpointTick, checkpointFile);
+        } catch (IOException e) {
+            System.err.printf("Failed to replay workload '%s'\nException: '%s'\n", args[0], e.getMessage());
+            System.exit(1);
+        }
+        System.out.println(shortTermScheduler.getMetrics());
+        System.out.print(shortTermScheduler.describeDevices());
+    }
+
+    /**
+     * @param file The workload file to replay.
+     * @param shortTermScheduler A scheduler without real time pacing, whose thread is not started.
+     * @param maxLoad The maximum load of the long term scheduler.
+     * @return The number of programs submitted.
+     * Runs the whole workload to completion.
+     */
+    public static long replay(Path file, ShortTermScheduler shortTermScheduler, int maxLoad) throws IOException {
+        try (WorkloadReader reader = new WorkloadReader(file)) {
+            return replay(reader, shortTermScheduler, maxLoad, Long.MAX_VALUE).getSubmittedCount();
+        }
+    }
+
+    /**
+     * @param source The submissions to replay.
+     * @param shortTermScheduler A scheduler without real time pacing, whose threads are not started:
+     *                           a {@link ShortTermScheduler} or a {@link simulation.MultiCoreScheduler}.
+     * @param maxLoad The maximum load of the long term scheduler.
+     * @param stopTick The tick at which to stop, or Long.MAX_VALUE to run until every submitted program is done.
+     * @return The long term scheduler the programs went through, which is stopped.
+     */
+    public static <T extends InterSchedulerInterface & ControlInterface & VirtualTimeInterface> LongTermScheduler replay(
+            WorkloadSource source, T shortTermScheduler, int maxLoad, long stopTick) throws IOException {
+        LongTermScheduler longTermScheduler = new LongTermScheduler(maxLoad, shortTermScheduler, fileName -> null);
+        longTermScheduler.admitInline();
+        shortTermScheduler.startSimulation();
+        while (source.next() && source.getTick() < stopTick) {
+            Program program = source.getProgram();
+            shortTermScheduler.runUntil(source.getTick());
+            longTermScheduler.submitProgram(program, source.getPriority(), source.getAffinity());
+        }
+        if (stopTick == Long.MAX_VALUE) {
+            shortTermScheduler.runToCompletion();
+        } else {
+            shortTermScheduler.runUntil(stopTick);
+        }
+        longTermScheduler.stop();
+        return longTermScheduler;
+    }
+
+    /**
+     * @param source The submissions to replay, from the start of the workload even when resuming.
+     * @param shortTermScheduler A new scheduler without real time pacing, whose thread is not started.
+     * @param maxLoad The maximum load of the long term scheduler.
+     * @param resumeFile A checkpoint of an earlier replay of the same workload to go on from, or null to start from the beginning.
+     *                   The submissions before its clock are part of it, so they are skipped.
+     * @param checkpointTick The tick at which to save a checkpoint, before the submissions of that tick, or -1 for none.
+     * @param checkpointFile Where to save the checkpoint.
+     * @return The long term scheduler the programs went through, which is stopped.
+     * Runs the whole workload to completion. Saving a checkpoint does not change how the run goes on.
+     */
+    public static LongTermScheduler replay(WorkloadSource source, ShortTermScheduler shortTermScheduler, int maxLoad,
+                                           Path resumeFile, long checkpointTick, Path checkpointFile) throws IOException {
+        LongTermScheduler longTermScheduler = new LongTermScheduler(maxLoad, shortTermScheduler, fileName -> null);
+        longTermScheduler.admitInline();
+        if (resumeFile == null) {
+            shortTermScheduler.startSimulation();
+        } else {
+            Checkpoint.restore(resumeFile, longTermScheduler, shortTermScheduler);
+        }
+        long resumeTick = shortTermScheduler.getClock();
+        boolean checkpointDue = checkpointTick >= resumeTick;
+        while (source.next()) {
+            if (source.getTick() < resumeTick) {
+                continue;
+            }
+            if (checkpointDue && source.getTick() >= checkpointTick) {
+                saveCheckpoint(checkpointFile, checkpointTick, longTermScheduler, shortTermScheduler);
+                checkpointDue = false;
+            }
+            Program program = source.getProgram();
+            shortTermScheduler.runUntil(source.getTick());
+            longTermScheduler.submitProgram(program, source.getPriority(), source.getAffinity());
+        }
+        if (checkpointDue) {
+            saveCheckpoint(checkpointFile, checkpointTick, longTermScheduler, shortTermScheduler);
+        }
+        shortTermScheduler.runToCompletion();
+        longTermScheduler.stop();
+        return longTermScheduler;
+    }
+
+    private static void saveCheckpoint(Path file, long tick, LongTermScheduler longTermScheduler,
+                                       ShortTermScheduler shortTermScheduler) throws IOException {
+        shortTermScheduler.runUntil(tick);
+        long start = System.nanoTime();
+        long size = Checkpoint.save(file, longTermScheduler, shortTermScheduler);
+        System.out.printf("Checkpoint at tick %d: %d processes, %d bytes, saved in %.3f ms\n", tick,
+                shortTermScheduler.getProcessLoad(), size, (System.nanoTime() - start) / 1e6);
+    }
+}
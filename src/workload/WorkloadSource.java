@@ -0,0 +1,95 @@
+package workload;
+
+import program.FileProgramLoader;
+import program.Program;
+import program.ProgramFiles;
+import simulation.SimulatedProcess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A sequence of submissions, each one a program along with the tick it is submitted at, in order of their ticks.
+ */
+public interface WorkloadSource extends Closeable {
+    /**
+     * @return Whether there was another submission, which is then available from {@link #getTick()} and {@link #getProgram()}
+     */
+    boolean next() throws IOException;
+
+    /**
+     * @return The tick the current submission is made at
+     */
+    long getTick();
+
+    /**
+     * @return The program of the current submission
+     */
+    Program getProgram();
+
+    /**
+     * @return The priority of the current submission
+     */
+    default int getPriority() {
+        return SimulatedProcess.DEFAULT_PRIORITY;
+    }
+
+    /**
+     * @return The CPU the current submission is pinned to, or {@link SimulatedProcess#NO_AFFINITY}
+     */
+    default int getAffinity() {
+        return SimulatedProcess.NO_AFFINITY;
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+
+    /**
+     * @param description One of:
+     *                    "random:seed:count:job", that many random programs generated from the seed, like "random:42:1000:CPU200";
+     *                    "synthetic:seed:count:spec", that many jobs generated from the seed as the {@link WorkloadSpec} file describes;
+     *                    the path of a workload file recorded by a {@link WorkloadWriter};
+     *                    or a program file, a directory or a glob, whose programs are all submitted at the first tick.
+     * @return The workload the description stands for
+     */
+    static WorkloadSource open(String description) throws IOException {
+        if (description.startsWith("random:")) {
+            String[] parts = description.split(":", 4);
+            if (parts.length < 4) {
+                throw new IOException("Expected random:seed:count:job, got '" + description + "'");
+            }
+            try {
+                return new RandomWorkload(Long.parseLong(parts[1]), Integer.parseInt(parts[2]), parts[3]);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid random workload '" + description + "'");
+            }
+        }
+        if (description.startsWith("synthetic:")) {
+            String[] parts = description.split(":", 4);
+            if (parts.length < 4) {
+                throw new IOException("Expected synthetic:seed:count:spec, got '" + description + "'");
+            }
+            try {
+                return new SyntheticWorkload(WorkloadSpec.read(Paths.get(parts[3])), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid synthetic workload '" + description + "'");
+            }
+        }
+        Path path = Paths.get(description);
+        if (Files.isRegularFile(path) && WorkloadReader.isWorkloadFile(path)) {
+            return new WorkloadReader(path);
+        }
+        FileProgramLoader loader = new FileProgramLoader();
+        List<Program> programs = ProgramFiles.resolve(description).parallelStream()
+                .map(loader::loadProgram)
+                .filter(Objects::nonNull)
+                .toList();
+        return new ProgramListWorkload(programs);
+    }
+}
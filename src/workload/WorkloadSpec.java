@@ -0,0 +1,312 @@
+package workload;
+
+import program.Program;
+import simulation.SimulatedProcess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Describes a synthetic workload: how submissions arrive, and the mix of jobs that are submitted.
+ * A spec file has one statement per line, and lines starting with '#' are comments:
+ * <pre>
+ * arrivals poisson 20
+ * job interactive 3 bursts exp 10 cpu exp 3 io bimodal 2 40 0.2
+ * job batch 1 bursts const 1 cpu pareto 100 1.5 io const 1 priority -1
+ * </pre>
+ * "arrivals" is "poisson meanGap" or "bursty meanBurstSize meanGapInBurst meanGapBetweenBursts", in ticks.
+ * Every "job name weight" line adds a kind of job, picked with a probability proportional to its weight.
+ * A job alternates CPU bursts and blocks: "bursts" is the number of CPU bursts, "cpu" the length of each
+ * burst and "io" the duration of each block in between. A job line may end with "priority N", which the priority
+ * policy runs higher first, with "device name", the device its blocks wait for, and with "affinity N", the CPU
+ * a multi-core run pins its jobs to. Jobs have the default priority of 0, block on no device and may run on
+ * any CPU otherwise.
+ * Distributions are "exp mean", "pareto scale shape", "bimodal low high highProbability", "uniform low high" or "const value".
+ */
+public class WorkloadSpec {
+    private final ArrivalProcess arrivals;
+    private final List<JobClass> jobClasses;
+    private final double totalWeight;
+
+    /**
+     * @param arrivals When the jobs arrive.
+     * @param jobClasses The kinds of jobs, of which there must be at least one.
+     */
+    public WorkloadSpec(ArrivalProcess arrivals, List<JobClass> jobClasses) {
+        if (jobClasses.isEmpty()) {
+            throw new IllegalArgumentException("A workload needs at least one kind of job");
+        }
+        this.arrivals = arrivals;
+        this.jobClasses = List.copyOf(jobClasses);
+        double weight = 0;
+        for (JobClass jobClass : jobClasses) {
+            weight += jobClass.weight;
+        }
+        totalWeight = weight;
+    }
+
+    /**
+     * @param file The spec file.
+     * @return The spec the file describes
+     * @throws IOException If the file cannot be read, or is not a valid spec, with the line of the error
+     */
+    public static WorkloadSpec read(Path file) throws IOException {
+        ArrivalProcess arrivals = ArrivalProcess.poisson(0);
+        List<JobClass> jobClasses = new ArrayList<>();
+        List<String> lines = Files.readAllLines(file);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            Tokens tokens = new Tokens(line.split("\\s+"), file, i + 1);
+            String statement = tokens.next();
+            if (statement.equals("arrivals")) {
+                arrivals = tokens.arrivals();
+            } else if (statement.equals("job")) {
+                jobClasses.add(tokens.jobClass());
+            } else {
+                throw tokens.error("expected 'arrivals' or 'job', got '" + statement + "'");
+            }
+            tokens.expectEnd();
+        }
+        if (jobClasses.isEmpty()) {
+            throw new IOException(file + ": no job lines");
+        }
+        return new WorkloadSpec(arrivals, jobClasses);
+    }
+
+    public ArrivalProcess getArrivals() {
+        return arrivals;
+    }
+
+    public List<JobClass> getJobClasses() {
+        return jobClasses;
+    }
+
+    /**
+     * @param rng The generator to draw from.
+     * @return A kind of job, picked with a probability proportional to its weight
+     */
+    JobClass pickJobClass(SplittableRandom rng) {
+        double target = rng.nextDouble() * totalWeight;
+        for (JobClass jobClass : jobClasses) {
+            target -= jobClass.weight;
+            if (target < 0) {
+                return jobClass;
+            }
+        }
+        return jobClasses.get(jobClasses.size() - 1);
+    }
+
+    /**
+     * A kind of job in the mix.
+     */
+    public static class JobClass {
+        private final String name;
+        private final double weight;
+        private final Distribution bursts;
+        private final Distribution cpuBurst;
+        private final Distribution ioDuration;
+        private final int priority;
+        private final String device;
+        private final int affinity;
+
+        /**
+         * @param name The name of the generated programs.
+         * @param weight How often this kind of job is picked, relative to the others.
+         * @param bursts The number of CPU bursts of a job.
+         * @param cpuBurst The number of execute instructions in each CPU burst.
+         * @param ioDuration The duration of the block between two CPU bursts.
+         */
+        public JobClass(String name, double weight, Distribution bursts, Distribution cpuBurst, Distribution ioDuration) {
+            this(name, weight, bursts, cpuBurst, ioDuration, SimulatedProcess.DEFAULT_PRIORITY, null,
+                    SimulatedProcess.NO_AFFINITY);
+        }
+
+        /**
+         * @param name The name of the generated programs.
+         * @param weight How often this kind of job is picked, relative to the others.
+         * @param bursts The number of CPU bursts of a job.
+         * @param cpuBurst The number of execute instructions in each CPU burst.
+         * @param ioDuration The duration of the block between two CPU bursts.
+         * @param priority The priority the jobs are submitted at.
+         * @param device The device the blocks of the jobs wait for, or null for none.
+         * @param affinity The CPU the jobs are pinned to, or {@link SimulatedProcess#NO_AFFINITY}.
+         */
+        public JobClass(String name, double weight, Distribution bursts, Distribution cpuBurst, Distribution ioDuration,
+                        int priority, String device, int affinity) {
+            if (!(weight > 0)) {
+                throw new IllegalArgumentException("The weight of a job must be positive: " + weight);
+            }
+            if (affinity < 0 && affinity != SimulatedProcess.NO_AFFINITY) {
+                throw new IllegalArgumentException("The affinity of a job must be a CPU index: " + affinity);
+            }
+            this.name = name;
+            this.weight = weight;
+            this.bursts = bursts;
+            this.cpuBurst = cpuBurst;
+            this.ioDuration = ioDuration;
+            this.priority = priority;
+            this.device = device;
+            this.affinity = affinity;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        /**
+         * @return The device the blocks of the jobs wait for, or null for none
+         */
+        public String getDevice() {
+            return device;
+        }
+
+        /**
+         * @return The CPU the jobs are pinned to, or {@link SimulatedProcess#NO_AFFINITY}
+         */
+        public int getAffinity() {
+            return affinity;
+        }
+
+        /**
+         * @param rng The generator of this job, which nothing else draws from.
+         * @return A new program of this kind
+         */
+        public Program generate(SplittableRandom rng) {
+            Program.Builder builder = new Program.Builder();
+            long burstCount = Math.min(bursts.sample(rng), Integer.MAX_VALUE);
+            for (long i = 0; i < burstCount; i++) {
+                if (i > 0) {
+                    builder.addBlock(device, (int) Math.min(ioDuration.sample(rng), Integer.MAX_VALUE));
+                }
+                builder.addExecutes((int) Math.min(cpuBurst.sample(rng), Integer.MAX_VALUE - builder.size()));
+            }
+            return builder.build(name);
+        }
+    }
+
+    /**
+     * The words of a spec line, read from left to right.
+     */
+    private static class Tokens {
+        private final String[] words;
+        private final Path file;
+        private final int line;
+        private int next;
+
+        Tokens(String[] words, Path file, int line) {
+            this.words = words;
+            this.file = file;
+            this.line = line;
+            next = 0;
+        }
+
+        String next() throws IOException {
+            if (next == words.length) {
+                throw error("unexpected end of line");
+            }
+            return words[next++];
+        }
+
+        double number() throws IOException {
+            String word = next();
+            try {
+                return Double.parseDouble(word);
+            } catch (NumberFormatException e) {
+                throw error("expected a number, got '" + word + "'");
+            }
+        }
+
+        int integer() throws IOException {
+            String word = next();
+            try {
+                return Integer.parseInt(word);
+            } catch (NumberFormatException e) {
+                throw error("expected a whole number, got '" + word + "'");
+            }
+        }
+
+        void expect(String word) throws IOException {
+            String actual = next();
+            if (!actual.equals(word)) {
+                throw error("expected '" + word + "', got '" + actual + "'");
+            }
+        }
+
+        void expectEnd() throws IOException {
+            if (next < words.length) {
+                throw error("unexpected '" + words[next] + "'");
+            }
+        }
+
+        ArrivalProcess arrivals() throws IOException {
+            String kind = next();
+            return switch (kind) {
+                case "poisson" -> ArrivalProcess.poisson(number());
+                case "bursty" -> ArrivalProcess.bursty(number(), number(), number());
+                default -> throw error("expected 'poisson' or 'bursty', got '" + kind + "'");
+            };
+        }
+
+        JobClass jobClass() throws IOException {
+            String name = next();
+            double weight = number();
+            expect("bursts");
+            Distribution bursts = distribution();
+            expect("cpu");
+            Distribution cpuBurst = distribution();
+            expect("io");
+            Distribution ioDuration = distribution();
+            int priority = SimulatedProcess.DEFAULT_PRIORITY;
+            String device = null;
+            int affinity = SimulatedProcess.NO_AFFINITY;
+            while (next < words.length) {
+                String option = next();
+                if (option.equals("priority")) {
+                    priority = integer();
+                } else if (option.equals("device")) {
+                    device = next();
+                } else if (option.equals("affinity")) {
+                    affinity = integer();
+                } else {
+                    throw error("expected 'priority', 'device' or 'affinity', got '" + option + "'");
+                }
+            }
+            try {
+                return new JobClass(name, weight, bursts, cpuBurst, ioDuration, priority, device, affinity);
+            } catch (IllegalArgumentException e) {
+                throw error(e.getMessage());
+            }
+        }
+
+        Distribution distribution() throws IOException {
+            String kind = next();
+            return switch (kind) {
+                case "exp" -> Distribution.exponential(number());
+                case "pareto" -> Distribution.pareto(number(), number());
+                case "bimodal" -> Distribution.bimodal(number(), number(), number());
+                case "uniform" -> Distribution.uniform(number(), number());
+                case "const" -> Distribution.constant(number());
+                default -> throw error("expected 'exp', 'pareto', 'bimodal', 'uniform' or 'const', got '" + kind + "'");
+            };
+        }
+
+        IOException error(String message) {
+            return new IOException(String.format("%s, line %d: %s", file, line, message));
+        }
+    }
+}
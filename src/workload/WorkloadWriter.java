@@ -0,0 +1,55 @@
+package workload;
+
+import interfaces.SubmissionRecorderInterface;
+import program.Program;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records every submission of a run into a workload file, so the run can be replayed exactly.
+ */
+public class WorkloadWriter implements SubmissionRecorderInterface, Closeable {
+    private final DataOutputStream out;
+    private long submissionCount;
+
+    /**
+     * @param file The workload file, which is overwritten
+     */
+    public WorkloadWriter(Path file) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        out.writeLong(WorkloadFormat.MAGIC);
+        out.writeInt(WorkloadFormat.VERSION);
+        submissionCount = 0;
+    }
+
+    @Override
+    public synchronized void recordSubmission(long tick, Program program, int priority, int affinity) {
+        try {
+            out.writeLong(tick);
+            out.writeInt(priority);
+            out.writeInt(affinity);
+            program.writeTo(out);
+            submissionCount++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return The number of submissions recorded so far
+     */
+    public synchronized long getSubmissionCount() {
+        return submissionCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}